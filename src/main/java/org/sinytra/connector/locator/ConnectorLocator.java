@@ -27,18 +27,24 @@ import org.sinytra.connector.locator.filter.ForgeModPackageFilter;
 import org.sinytra.connector.locator.filter.SplitPackageMerger;
 import org.sinytra.connector.transformer.jar.JarTransformer;
 import org.sinytra.connector.util.ConnectorUtil;
+import org.sinytra.connector.util.FileDigestIndex;
 import org.slf4j.Logger;
 
 import java.io.IOException;
 import java.lang.module.ModuleDescriptor;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -49,6 +55,7 @@ import static org.sinytra.connector.transformer.jar.JarTransformer.cacheTransfor
 
 public class ConnectorLocator implements IDependencyLocator {
     public static final String PLACEHOLDER_PROPERTY = "connector:placeholder";
+    private static final int NESTED_JAR_HASH_LENGTH = 16;
     private static final Logger LOGGER = LogUtils.getLogger();
 
     @Override
@@ -99,9 +106,8 @@ public class ConnectorLocator implements IDependencyLocator {
         Collection<IModFile> loadedModFiles = loadedModInfos.stream().map(SimpleModInfo::origin).toList();
         Collection<String> loadedModIds = loadedModInfos.stream().filter(mod -> !mod.library()).map(SimpleModInfo::modid).collect(Collectors.toUnmodifiableSet());
 
-        // Discover fabric mod jars
-        List<JarTransformer.TransformableJar> discoveredJars = FabricModsDiscoverer.scanFabricMods()
-            .map(rethrowFunction(p -> cacheTransformableJar(p.toFile())))
+        // Discover fabric mod jars, reading metadata and validating caches in parallel
+        List<JarTransformer.TransformableJar> discoveredJars = FabricModsDiscoverer.discoverFabricMods(rethrowFunction(p -> cacheTransformableJar(p.toFile()))).stream()
             .filter(jar -> {
                 ConnectorFabricModMetadata metadata = jar.modPath().metadata().modMetadata();
                 return !shouldIgnoreMod(metadata, loadedModIds);
@@ -110,12 +116,18 @@ public class ConnectorLocator implements IDependencyLocator {
 
         // Discover fabric nested mod jars
         Multimap<JarTransformer.TransformableJar, JarTransformer.TransformableJar> parentToChildren = HashMultimap.create();
+        NestedJarStore nestedJarStore = new NestedJarStore(tempDir);
         List<JarTransformer.TransformableJar> discoveredNestedJars = discoveredJars.stream()
             .flatMap(jar -> {
                 ConnectorFabricModMetadata metadata = jar.modPath().metadata().modMetadata();
-                return shouldIgnoreMod(metadata, loadedModIds) ? Stream.empty() : discoverNestedJarsRecursive(tempDir, jar, metadata.getJars(), parentToChildren, loadedModIds);
+                return shouldIgnoreMod(metadata, loadedModIds) ? Stream.empty() : discoverNestedJarsRecursive(nestedJarStore, jar, metadata.getJars(), parentToChildren, loadedModIds);
             })
             .toList();
+        nestedJarStore.logStatistics();
+        nestedJarStore.deleteUnreferenced();
+
+        // Persist discovery results for the next launch
+        ModDiscoveryIndex.INSTANCE.save();
 
         // Collect mods that are (likely) going to be excluded by FML's UniqueModListBuilder. Exclude them from global split package filtering
         Collection<? super IModFile> ignoredModFiles = new ArrayList<>();
@@ -145,7 +157,7 @@ public class ConnectorLocator implements IDependencyLocator {
         }
 
         // Deal with split packages (thanks modules)
-        List<SplitPackageMerger.FilteredModPath> moduleSafeJars = SplitPackageMerger.mergeSplitPackages(transformed.stream().map(JarTransformer.TransformedFabricModPath::output).toList(), loadedModFiles, ignoredModFiles);
+        List<SplitPackageMerger.FilteredModPath> moduleSafeJars = SplitPackageMerger.mergeSplitPackages(transformed, loadedModFiles, ignoredModFiles);
 
         return moduleSafeJars.stream().map(ConnectorLocator::createConnectorModFile).toList();
     }
@@ -162,33 +174,27 @@ public class ConnectorLocator implements IDependencyLocator {
         return modFile;
     }
 
-    private static Stream<JarTransformer.TransformableJar> discoverNestedJarsRecursive(Path tempDir, JarTransformer.TransformableJar parent, Collection<NestedJarEntry> jars, Multimap<JarTransformer.TransformableJar, JarTransformer.TransformableJar> parentToChildren, Collection<String> loadedModIds) {
+    private static Stream<JarTransformer.TransformableJar> discoverNestedJarsRecursive(NestedJarStore nestedJarStore, JarTransformer.TransformableJar parent, Collection<NestedJarEntry> jars, Multimap<JarTransformer.TransformableJar, JarTransformer.TransformableJar> parentToChildren, Collection<String> loadedModIds) {
         SecureJar secureJar = SecureJar.from(parent.input().toPath());
         return jars.stream()
             .map(entry -> secureJar.getPath(entry.getFile()))
             .filter(Files::exists)
             .flatMap(path -> {
-                JarTransformer.TransformableJar jar = uncheck(() -> prepareNestedJar(tempDir, secureJar.getPrimaryPath().getFileName().toString(), path));
+                NestedJar nestedJar = uncheck(() -> nestedJarStore.prepareNestedJar(path));
+                JarTransformer.TransformableJar jar = nestedJar.jar();
                 ConnectorFabricModMetadata metadata = jar.modPath().metadata().modMetadata();
                 if (shouldIgnoreMod(metadata, loadedModIds)) {
                     return Stream.empty();
                 }
                 parentToChildren.put(parent, jar);
-                return Stream.concat(Stream.of(jar), discoverNestedJarsRecursive(tempDir, jar, metadata.getJars(), parentToChildren, loadedModIds));
+                // Jars shared by multiple parents have already been discovered along with their children
+                if (nestedJar.shared()) {
+                    return Stream.empty();
+                }
+                return Stream.concat(Stream.of(jar), discoverNestedJarsRecursive(nestedJarStore, jar, metadata.getJars(), parentToChildren, loadedModIds));
             });
     }
 
-    private static JarTransformer.TransformableJar prepareNestedJar(Path tempDir, String parentName, Path path) throws IOException {
-        Files.createDirectories(tempDir);
-
-        String parentNameWithoutExt = parentName.split("\\.(?!.*\\.)")[0];
-        // Extract JiJ
-        Path extracted = tempDir.resolve(parentNameWithoutExt + "$" + path.getFileName().toString());
-        ConnectorUtil.cache(path, extracted, () -> Files.copy(path, extracted));
-
-        return uncheck(() -> JarTransformer.cacheTransformableJar(extracted.toFile()));
-    }
-
     // Removes any duplicates from located connector mods, as well as mods that are already located by FML.
     private static List<JarTransformer.TransformableJar> handleDuplicateMods(List<JarTransformer.TransformableJar> rootMods, List<JarTransformer.TransformableJar> nestedMods, Collection<SimpleModInfo> loadedMods, Collection<? super IModFile> ignoredModFiles) {
         return Stream.concat(rootMods.stream(), nestedMods.stream())
@@ -255,5 +261,86 @@ public class ConnectorLocator implements IDependencyLocator {
         new JarInJarDependencyLocator().scanMods(List.of(modFile), pipeline);
     }
 
+    /**
+     * Extracts nested jars under the hash of their contents. Identical jars bundled by multiple mods are only extracted,
+     * read and transformed once, and shared by all of their parents. Extracted jars that are no longer bundled by any
+     * mod are deleted after discovery, along with their transformed outputs.
+     */
+    private static final class NestedJarStore {
+        private final Path tempDir;
+        private final Map<String, JarTransformer.TransformableJar> jars = new HashMap<>();
+        private final Set<Path> extractedJars = new HashSet<>();
+        private int sharedJars;
+        private long savedBytes;
+
+        NestedJarStore(Path tempDir) {
+            this.tempDir = tempDir;
+        }
+
+        NestedJar prepareNestedJar(Path path) throws IOException {
+            String digest = FileDigestIndex.INSTANCE.getDigest(path);
+            JarTransformer.TransformableJar existing = this.jars.get(digest);
+            if (existing != null) {
+                this.sharedJars++;
+                this.savedBytes += Files.size(path);
+                return new NestedJar(existing, true);
+            }
+
+            Files.createDirectories(this.tempDir);
+            String nameWithoutExt = path.getFileName().toString().split("\\.(?!.*\\.)")[0];
+            // Extract JiJ. The file name is derived from its contents, so an existing file is always up to date
+            String hash = digest.substring(digest.indexOf(':') + 1);
+            Path extracted = this.tempDir.resolve(nameWithoutExt + "$" + hash.substring(0, Math.min(hash.length(), NESTED_JAR_HASH_LENGTH)) + ".jar");
+            if (!Files.exists(extracted)) {
+                Path temp = Files.createTempFile(this.tempDir, extracted.getFileName().toString(), ".tmp");
+                Files.copy(path, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, extracted, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            JarTransformer.TransformableJar jar = JarTransformer.cacheTransformableJar(extracted.toFile());
+            this.jars.put(digest, jar);
+            this.extractedJars.add(extracted);
+            return new NestedJar(jar, false);
+        }
+
+        /**
+         * Delete files in the extraction directory that weren't prepared during this discovery, such as previous versions
+         * of updated nested jars or jars extracted per parent mod by older versions, and their transformed outputs.
+         */
+        void deleteUnreferenced() {
+            if (!Files.isDirectory(this.tempDir)) {
+                return;
+            }
+            List<Path> unreferenced;
+            try (Stream<Path> stream = Files.list(this.tempDir)) {
+                unreferenced = stream.filter(path -> !this.extractedJars.contains(path) && Files.isRegularFile(path)).toList();
+            } catch (IOException e) {
+                LOGGER.error(SCAN, "Error listing extracted nested jars in {}", this.tempDir, e);
+                return;
+            }
+            for (Path path : unreferenced) {
+                try {
+                    Path output = JarTransformer.getOutputPath(path.toFile());
+                    Files.deleteIfExists(output);
+                    Files.deleteIfExists(ConnectorUtil.getInputCachePath(output));
+                    Files.delete(path);
+                } catch (IOException e) {
+                    LOGGER.warn(SCAN, "Error deleting unreferenced nested jar {}", path, e);
+                }
+            }
+            if (!unreferenced.isEmpty()) {
+                LOGGER.debug(SCAN, "Deleted {} unreferenced nested jars", unreferenced.size());
+            }
+        }
+
+        void logStatistics() {
+            if (this.sharedJars > 0) {
+                LOGGER.info(SCAN, "Shared {} duplicate nested jars between mods, saving {} KiB of extraction and transformation", this.sharedJars, this.savedBytes / 1024);
+            }
+        }
+    }
+
+    private record NestedJar(JarTransformer.TransformableJar jar, boolean shared) {}
+
     private record SimpleModInfo(String modid, ArtifactVersion version, boolean library, @Nullable IModFile origin) {}
 }
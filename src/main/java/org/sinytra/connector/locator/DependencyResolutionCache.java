@@ -0,0 +1,143 @@
+package org.sinytra.connector.locator;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.mojang.logging.LogUtils;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.loader.api.metadata.ModDependency;
+import net.fabricmc.loader.impl.discovery.ModCandidate;
+import net.fabricmc.loader.impl.metadata.LoaderModMetadata;
+import net.neoforged.fml.loading.FMLPaths;
+import org.jetbrains.annotations.Nullable;
+import org.sinytra.connector.util.ConnectorConfig;
+import org.sinytra.connector.util.ConnectorUtil;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores the result of the last dependency resolution, keyed by a digest of everything the resolver's outcome depends on.
+ * When the set of candidates is unchanged between launches, the stored result is reused and the resolver doesn't need to run.
+ * <p>
+ * The key covers the id, version, provided ids, dependencies and nesting of every candidate, the global mod aliases,
+ * the user dependency overrides file, the environment type and the Connector version.
+ */
+final class DependencyResolutionCache {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final Path PATH = ConnectorUtil.CONNECTOR_FOLDER.resolve("resolution.txt");
+    private static final String DEPENDENCY_OVERRIDES_FILE = "fabric_loader_dependencies.json";
+
+    /**
+     * Compute the cache key of a resolution.
+     *
+     * @param candidates     all mod candidates passed to the resolver
+     * @param candidatePaths stable identifiers of candidates
+     * @param envType        the current environment type
+     * @return the digest of resolution inputs
+     */
+    static String computeKey(Collection<ModCandidate> candidates, Map<ModCandidate, String> candidatePaths, EnvType envType) {
+        List<String> descriptions = new ArrayList<>(candidates.size());
+        for (ModCandidate candidate : candidates) {
+            descriptions.add(describe(candidate, candidatePaths));
+        }
+        // The order candidates are collected in doesn't affect resolution
+        descriptions.sort(null);
+
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(EmbeddedDependencies.getJarCacheVersion(), StandardCharsets.UTF_8);
+        hasher.putString(envType.name(), StandardCharsets.UTF_8);
+        descriptions.forEach(str -> hasher.putString(str, StandardCharsets.UTF_8).putByte((byte) 0));
+        ConnectorConfig.INSTANCE.get().globalModAliases().entries().stream()
+            .map(entry -> entry.getKey() + "=" + entry.getValue())
+            .sorted()
+            .forEach(str -> hasher.putString(str, StandardCharsets.UTF_8).putByte((byte) 0));
+        Path overrides = FMLPaths.CONFIGDIR.get().resolve(DEPENDENCY_OVERRIDES_FILE);
+        try {
+            if (Files.exists(overrides)) {
+                hasher.putBytes(Files.readAllBytes(overrides));
+            }
+        } catch (IOException e) {
+            // Make sure the stored result is never reused
+            hasher.putLong(System.nanoTime());
+        }
+        return hasher.hash().toString();
+    }
+
+    private static String describe(ModCandidate candidate, Map<ModCandidate, String> candidatePaths) {
+        LoaderModMetadata metadata = candidate.getMetadata();
+        StringBuilder builder = new StringBuilder()
+            .append(candidatePaths.getOrDefault(candidate, "")).append('|')
+            .append(metadata.getId()).append('|')
+            .append(metadata.getVersion().getFriendlyString()).append('|')
+            .append(metadata.getProvides().stream().sorted().toList()).append('|');
+        metadata.getDependencies().stream()
+            .map(DependencyResolutionCache::describe)
+            .sorted()
+            .forEach(dep -> builder.append(dep).append(';'));
+        builder.append('|');
+        candidate.getNestedMods().stream()
+            .map(nested -> candidatePaths.getOrDefault(nested, nested.getId()))
+            .sorted()
+            .forEach(nested -> builder.append(nested).append(';'));
+        return builder.toString();
+    }
+
+    private static String describe(ModDependency dependency) {
+        return dependency.getKind() + " " + dependency.getModId() + " " + dependency.getVersionRequirements();
+    }
+
+    /**
+     * {@return identifiers of resolved candidates stored for the given key, or {@code null} if there is no matching result}
+     *
+     * @param key the resolution cache key
+     */
+    @Nullable
+    static List<String> load(String key) {
+        if (!ConnectorUtil.isCacheEnabled() || !Files.exists(PATH)) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(PATH);
+            if (lines.isEmpty() || !lines.getFirst().equals(key)) {
+                return null;
+            }
+            return List.copyOf(lines.subList(1, lines.size()));
+        } catch (IOException e) {
+            LOGGER.error("Error reading dependency resolution cache", e);
+            return null;
+        }
+    }
+
+    /**
+     * Store identifiers of resolved candidates.
+     *
+     * @param key      the resolution cache key
+     * @param resolved identifiers of resolved candidates, in resolution order
+     */
+    static void save(String key, List<String> resolved) {
+        if (!ConnectorUtil.isCacheEnabled()) {
+            return;
+        }
+        try {
+            Files.createDirectories(PATH.getParent());
+            List<String> lines = new ArrayList<>(resolved.size() + 1);
+            lines.add(key);
+            lines.addAll(resolved);
+            Path temp = PATH.resolveSibling(PATH.getFileName() + ".tmp");
+            Files.write(temp, lines);
+            Files.move(temp, PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.error("Error saving dependency resolution cache", e);
+        }
+    }
+
+    private DependencyResolutionCache() {}
+}
@@ -26,6 +26,7 @@ import net.fabricmc.loader.impl.util.version.VersionParser;
 import net.neoforged.fml.ModLoadingException;
 import net.neoforged.fml.loading.FMLPaths;
 import net.neoforged.neoforgespi.locating.IModFile;
+import org.jetbrains.annotations.Nullable;
 import org.sinytra.connector.ConnectorEarlyLoader;
 import org.sinytra.connector.transformer.jar.JarTransformer;
 import org.sinytra.connector.util.ConnectorConfig;
@@ -36,6 +37,7 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -65,6 +67,15 @@ public final class DependencyResolver {
         List<ModCandidate> allCandidates = Stream.of(candidates.stream(), forgeCandidates, builtinCandidates).flatMap(Function.identity()).toList();
 
         EnvType envType = FabricLoader.getInstance().getEnvironmentType();
+        // Reuse the previous result if resolution inputs haven't changed
+        Map<ModCandidate, String> candidatePaths = new HashMap<>();
+        jarToCandidate.forEach((jar, candidate) -> candidatePaths.put(candidate, jar.input().getAbsolutePath()));
+        String cacheKey = DependencyResolutionCache.computeKey(allCandidates, candidatePaths, envType);
+        List<JarTransformer.TransformableJar> cached = getCachedResolution(cacheKey, jarToCandidate.keySet());
+        if (cached != null) {
+            LOGGER.info("Dependency resolution found {} candidates to load (cached)", cached.size());
+            return cached;
+        }
         try {
             List<ModCandidate> resolved = ModResolver.resolve(allCandidates, envType, Map.of());
             List<JarTransformer.TransformableJar> candidateJars = resolved.stream()
@@ -73,12 +84,32 @@ public final class DependencyResolver {
                 .filter(jar -> jar.modPath().metadata().modMetadata().loadsInEnvironment(envType))
                 .toList();
             LOGGER.info("Dependency resolution found {} candidates to load", candidateJars.size());
+            DependencyResolutionCache.save(cacheKey, candidateJars.stream().map(jar -> jar.input().getAbsolutePath()).toList());
             return candidateJars;
         } catch (ModResolutionException e) {
             throw new ModLoadingException(ConnectorEarlyLoader.createLoadingIssue(e, e.getMessage().replaceAll("\t", "  "), false));
         }
     }
 
+    @Nullable
+    private static List<JarTransformer.TransformableJar> getCachedResolution(String cacheKey, Collection<JarTransformer.TransformableJar> jars) {
+        List<String> resolvedPaths = DependencyResolutionCache.load(cacheKey);
+        if (resolvedPaths == null) {
+            return null;
+        }
+        Map<String, JarTransformer.TransformableJar> jarsByPath = new HashMap<>();
+        jars.forEach(jar -> jarsByPath.put(jar.input().getAbsolutePath(), jar));
+        List<JarTransformer.TransformableJar> resolved = new ArrayList<>(resolvedPaths.size());
+        for (String path : resolvedPaths) {
+            JarTransformer.TransformableJar jar = jarsByPath.get(path);
+            if (jar == null) {
+                return null;
+            }
+            resolved.add(jar);
+        }
+        return resolved;
+    }
+
     public static void removeAliasedModDependencyConstraints(LoaderModMetadata metadata) {
         Multimap<String, String> aliases = ConnectorConfig.INSTANCE.get().globalModAliases();
         Collection<ModDependency> mapped = metadata.getDependencies().stream()
@@ -1,6 +1,8 @@
 package org.sinytra.connector.locator;
 
 import com.google.common.base.Suppliers;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.mojang.logging.LogUtils;
 import net.neoforged.fml.loading.FMLEnvironment;
 import org.apache.commons.lang3.RandomStringUtils;
@@ -12,6 +14,7 @@ import java.io.InputStream;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.function.Supplier;
 import java.util.jar.Attributes;
 import java.util.jar.JarFile;
@@ -47,6 +50,14 @@ public final class EmbeddedDependencies {
         return ver + "," + FMLEnvironment.dist.name().toLowerCase();
     });
 
+    private static final Supplier<String> ADAPTER_DATA_VERSION = Suppliers.memoize(() -> {
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (String name : List.of(ADAPTER_PATCH_DATA, ADAPTER_LVT_OFFSETS)) {
+            hasher.putBytes(uncheck(() -> Files.readAllBytes(getAdapterData(name))));
+        }
+        return hasher.hash().toString();
+    });
+
     public static Path getAdapterData(String path) {
         return SELF_PATH.resolve(ADAPTER_DATA_PATH).resolve(path);
     }
@@ -56,6 +67,13 @@ public final class EmbeddedDependencies {
         return JAR_CACHE_VERSION.get();
     }
 
+    /**
+     * {@return a checksum of the embedded adapter data, changing whenever a different adapter version is shipped}
+     */
+    public static String getAdapterDataVersion() {
+        return ADAPTER_DATA_VERSION.get();
+    }
+
     public static String getFabricLoaderVersion() {
         return ATTRIBUTES.getValue(FABRIC_LOADER_VERSION);
     }
@@ -14,6 +14,7 @@ import org.slf4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -22,6 +23,7 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -33,7 +35,24 @@ public final class FabricModsDiscoverer {
     private static final String ADDITIONAL_MODS_PROPERTY = "connector.additionalModLocations";
     private static final Logger LOGGER = LogUtils.getLogger();
 
-    public static Stream<Path> scanFabricMods() {
+    /**
+     * Discover fabric mod jars and read them concurrently.
+     * <p>
+     * Candidate files are listed up front, after which each one is checked for fabric mod metadata and passed to
+     * {@code reader} on its own virtual thread, as both steps are dominated by I/O. Results are returned in
+     * discovery order regardless of completion order.
+     *
+     * @param reader reads a discovered fabric mod jar
+     * @return reader results, in discovery order
+     */
+    public static <T> List<T> discoverFabricMods(Function<Path, T> reader) {
+        List<Path> candidates = scanCandidates().toList();
+        LOGGER.debug(SCAN, "Reading {} mod candidates", candidates.size());
+        List<Optional<T>> results = ConnectorUtil.mapConcurrently(candidates, path -> isFabricModJar(path) ? Optional.of(reader.apply(path)) : Optional.empty());
+        return results.stream().flatMap(Optional::stream).toList();
+    }
+
+    private static Stream<Path> scanCandidates() {
         List<Path> excluded = ModDirTransformerDiscoverer.allExcluded();
         return Stream.of(scanModsDir(excluded), scanClasspath(), scanFromArguments(excluded))
             .flatMap(Function.identity());
@@ -46,8 +65,7 @@ public final class FabricModsDiscoverer {
     private static Stream<Path> filterPaths(Stream<Path> stream, List<Path> excluded) {
         return stream
             .filter(p -> !excluded.contains(p) && StringUtils.toLowerCase(p.getFileName().toString()).endsWith(SUFFIX))
-            .sorted(Comparator.comparing(path -> StringUtils.toLowerCase(path.getFileName().toString())))
-            .filter(FabricModsDiscoverer::isFabricModJar);
+            .sorted(Comparator.comparing(path -> StringUtils.toLowerCase(path.getFileName().toString())));
     }
 
     private static Stream<Path> scanClasspath() {
@@ -61,7 +79,7 @@ public final class FabricModsDiscoverer {
             while (resources.hasMoreElements()) {
                 URL url = resources.nextElement();
                 Path path = ClasspathLocatorUtils.findJarPathFor(ConnectorUtil.FABRIC_MOD_JSON, ConnectorUtil.FABRIC_MOD_JSON, url);
-                if (claimed.stream().noneMatch(path::equals) && Files.exists(path) && !Files.isDirectory(path) && isFabricModJar(path)) {
+                if (claimed.stream().noneMatch(path::equals) && Files.exists(path) && !Files.isDirectory(path)) {
                     ret.add(path);
                 }
             }
@@ -90,6 +108,20 @@ public final class FabricModsDiscoverer {
     }
 
     private static boolean isFabricModJar(Path path) {
+        try {
+            Boolean cached = ModDiscoveryIndex.INSTANCE.isFabricMod(path);
+            if (cached != null) {
+                return cached;
+            }
+            boolean fabricMod = readIsFabricModJar(path);
+            ModDiscoveryIndex.INSTANCE.putFabricMod(path, fabricMod);
+            return fabricMod;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean readIsFabricModJar(Path path) {
         SecureJar secureJar = SecureJar.from(path);
         String name = secureJar.name();
         Path modsToml = secureJar.getPath(ConnectorUtil.MODS_TOML);
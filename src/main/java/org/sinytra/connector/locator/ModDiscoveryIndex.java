@@ -0,0 +1,265 @@
+package org.sinytra.connector.locator;
+
+import com.mojang.logging.LogUtils;
+import net.fabricmc.loader.api.FabricLoader;
+import org.jetbrains.annotations.Nullable;
+import org.sinytra.connector.util.ConnectorUtil;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persisted index of mod discovery results keyed by file path and validated using the file's size, modification time and file key (inode).
+ * <p>
+ * Stores whether a file is a fabric mod along with the raw data read from its jar, which allows discovering unchanged
+ * mods on subsequent launches without opening them. Mod metadata is kept in its original JSON form and parsed again
+ * on load, so that changes to dependency overrides are always applied.
+ * <p>
+ * Only entries accessed during the current launch are written back, which drops files that have been removed.
+ */
+public final class ModDiscoveryIndex {
+    public static final ModDiscoveryIndex INSTANCE = new ModDiscoveryIndex(ConnectorUtil.CONNECTOR_FOLDER.resolve("discovery.bin"));
+
+    private static final int VERSION = 1;
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private final Path path;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> accessed = ConcurrentHashMap.newKeySet();
+    private volatile boolean loaded;
+    private volatile boolean dirty;
+    private int hits;
+    private int misses;
+
+    private ModDiscoveryIndex(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * {@return whether a file was previously found to be a fabric mod, or {@code null} if it is unknown or has changed}
+     *
+     * @param file the mod candidate
+     */
+    @Nullable
+    public Boolean isFabricMod(Path file) throws IOException {
+        Entry entry = getEntry(file);
+        return entry != null ? entry.fabricMod() : null;
+    }
+
+    /**
+     * Record whether a file is a fabric mod.
+     *
+     * @param file      the mod candidate
+     * @param fabricMod whether the file contains fabric mod metadata
+     */
+    public void putFabricMod(Path file, boolean fabricMod) throws IOException {
+        putEntry(file, fabricMod, null);
+    }
+
+    /**
+     * {@return previously read contents of a fabric mod jar, or {@code null} if they are unknown or the file has changed}
+     *
+     * @param file the mod jar
+     */
+    @Nullable
+    public ModJarData getModJarData(Path file) throws IOException {
+        Entry entry = getEntry(file);
+        return entry != null ? entry.data() : null;
+    }
+
+    /**
+     * Record the contents read from a fabric mod jar.
+     *
+     * @param file the mod jar
+     * @param data data read from the jar
+     */
+    public void putModJarData(Path file, ModJarData data) throws IOException {
+        putEntry(file, true, data);
+    }
+
+    @Nullable
+    private Entry getEntry(Path file) throws IOException {
+        // Only files on the default file system have stable paths and attributes
+        if (!ConnectorUtil.isCacheEnabled() || file.getFileSystem() != FileSystems.getDefault()) {
+            return null;
+        }
+        load();
+        String key = getKey(file);
+        this.accessed.add(key);
+        Entry entry = this.entries.get(key);
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (entry != null && entry.size() == attributes.size() && entry.modified() == attributes.lastModifiedTime().toMillis() && entry.fileKey().equals(String.valueOf(attributes.fileKey()))) {
+            synchronized (this) {
+                this.hits++;
+            }
+            return entry;
+        }
+        synchronized (this) {
+            this.misses++;
+        }
+        return null;
+    }
+
+    private void putEntry(Path file, boolean fabricMod, @Nullable ModJarData data) throws IOException {
+        if (!ConnectorUtil.isCacheEnabled() || file.getFileSystem() != FileSystems.getDefault()) {
+            return;
+        }
+        load();
+        String key = getKey(file);
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        this.entries.put(key, new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), String.valueOf(attributes.fileKey()), fabricMod, data));
+        this.accessed.add(key);
+        this.dirty = true;
+    }
+
+    private static String getKey(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Write updated entries to disk.
+     */
+    public synchronized void save() {
+        LOGGER.debug("Discovery index hits: {}, misses: {}", this.hits, this.misses);
+        if (!this.loaded || !this.dirty && this.accessed.size() == this.entries.size()) {
+            return;
+        }
+        try {
+            Files.createDirectories(this.path.getParent());
+            Path temp = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+            Map<String, Entry> snapshot = new LinkedHashMap<>();
+            this.entries.forEach((key, entry) -> {
+                if (this.accessed.contains(key)) {
+                    snapshot.put(key, entry);
+                }
+            });
+            try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                os.writeInt(VERSION);
+                os.writeUTF(getEnvironment());
+                os.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> mapEntry : snapshot.entrySet()) {
+                    Entry entry = mapEntry.getValue();
+                    os.writeUTF(mapEntry.getKey());
+                    os.writeLong(entry.size());
+                    os.writeLong(entry.modified());
+                    os.writeUTF(entry.fileKey());
+                    os.writeBoolean(entry.fabricMod());
+                    os.writeBoolean(entry.data() != null);
+                    if (entry.data() != null) {
+                        writeModJarData(os, entry.data());
+                    }
+                }
+            }
+            Files.move(temp, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.dirty = false;
+        } catch (IOException e) {
+            LOGGER.error("Error saving mod discovery index", e);
+        }
+    }
+
+    private void load() {
+        if (this.loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (this.loaded) {
+                return;
+            }
+            if (Files.exists(this.path)) {
+                try (DataInputStream is = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.path)))) {
+                    // Mixin configs are collected for the current environment only
+                    if (is.readInt() == VERSION && is.readUTF().equals(getEnvironment())) {
+                        int count = is.readInt();
+                        for (int i = 0; i < count; i++) {
+                            String key = is.readUTF();
+                            long size = is.readLong();
+                            long modified = is.readLong();
+                            String fileKey = is.readUTF();
+                            boolean fabricMod = is.readBoolean();
+                            ModJarData data = is.readBoolean() ? readModJarData(is) : null;
+                            this.entries.put(key, new Entry(size, modified, fileKey, fabricMod, data));
+                        }
+                    }
+                } catch (IOException e) {
+                    LOGGER.error("Error reading mod discovery index, all mods will be read again", e);
+                    this.entries.clear();
+                }
+            }
+            this.loaded = true;
+        }
+    }
+
+    private static String getEnvironment() {
+        return FabricLoader.getInstance().getEnvironmentType().name();
+    }
+
+    private static void writeModJarData(DataOutputStream os, ModJarData data) throws IOException {
+        os.writeInt(data.modJson().length);
+        os.write(data.modJson());
+        for (List<String> list : List.of(data.mixinConfigs(), data.refmaps(), data.mixinPackages())) {
+            os.writeInt(list.size());
+            for (String str : list) {
+                os.writeUTF(str);
+            }
+        }
+        os.writeInt(data.manifestAttributes().size());
+        for (Map.Entry<String, String> attribute : data.manifestAttributes().entrySet()) {
+            os.writeUTF(attribute.getKey());
+            os.writeUTF(attribute.getValue());
+        }
+        os.writeBoolean(data.containsAT());
+    }
+
+    private static ModJarData readModJarData(DataInputStream is) throws IOException {
+        byte[] modJson = new byte[is.readInt()];
+        is.readFully(modJson);
+        List<String> mixinConfigs = readStrings(is);
+        List<String> refmaps = readStrings(is);
+        List<String> mixinPackages = readStrings(is);
+        int attributeCount = is.readInt();
+        Map<String, String> manifestAttributes = new LinkedHashMap<>();
+        for (int i = 0; i < attributeCount; i++) {
+            manifestAttributes.put(is.readUTF(), is.readUTF());
+        }
+        boolean containsAT = is.readBoolean();
+        return new ModJarData(modJson, mixinConfigs, refmaps, mixinPackages, manifestAttributes, containsAT);
+    }
+
+    private static List<String> readStrings(DataInputStream is) throws IOException {
+        int count = is.readInt();
+        List<String> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(is.readUTF());
+        }
+        return List.copyOf(list);
+    }
+
+    /**
+     * Raw data read from a fabric mod jar during discovery.
+     *
+     * @param modJson            contents of the jar's fabric mod metadata file
+     * @param mixinConfigs       mixin config names for the current environment, including unlisted configs found in the jar
+     * @param refmaps            refmaps referenced by mixin configs
+     * @param mixinPackages      mixin packages of mixin configs, as paths
+     * @param manifestAttributes main manifest attributes
+     * @param containsAT         whether the jar contains an access transformer
+     */
+    public record ModJarData(byte[] modJson, List<String> mixinConfigs, List<String> refmaps, List<String> mixinPackages, Map<String, String> manifestAttributes, boolean containsAT) {}
+
+    private record Entry(long size, long modified, String fileKey, boolean fabricMod, @Nullable ModJarData data) {}
+}
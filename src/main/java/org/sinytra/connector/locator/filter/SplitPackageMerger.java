@@ -1,6 +1,5 @@
 package org.sinytra.connector.locator.filter;
 
-import com.mojang.datafixers.util.Pair;
 import com.mojang.logging.LogUtils;
 import cpw.mods.jarhandling.JarContents;
 import cpw.mods.jarhandling.JarContentsBuilder;
@@ -17,14 +16,14 @@ import org.slf4j.Logger;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -34,55 +33,50 @@ public class SplitPackageMerger {
     /**
      * Detect and resolve split package conflicts in jars.
      * Supplied paths must point to valid jars paths usable by {@link SecureJar}.
-     * @param paths jar paths to process
+     * Packages of each jar are taken from the transformation results, so no jar needs to be opened unless it contains a split package.
+     * @param paths jar paths to process, in the order they were discovered
      * @return a list of adjusted jar paths
      */
-    public static List<FilteredModPath> mergeSplitPackages(List<FabricModPath> paths, Iterable<IModFile> existing, Collection<? super IModFile> ignoredModFiles) {
-        // Paths that don't contain conflicting jars
-        List<FabricModPath> plainPaths = new ArrayList<>(paths);
+    public static List<FilteredModPath> mergeSplitPackages(List<JarTransformer.TransformedFabricModPath> paths, Iterable<IModFile> existing, Collection<? super IModFile> ignoredModFiles) {
         // Processed paths result
         List<FilteredModPath> output = new ArrayList<>();
 
-        // Package name -> list of jars that contain the package
-        Map<String, List<Pair<SecureJar, FabricModPath>>> pkgSources = new HashMap<>();
-        for (FabricModPath modInfo : paths) {
-            SecureJar secureJar = SecureJar.from(modInfo.path());
-            for (String pkg : secureJar.moduleDataProvider().descriptor().packages()) {
-                pkgSources.computeIfAbsent(pkg, p -> new ArrayList<>()).add(Pair.of(secureJar, modInfo));
+        // Package name -> discovery ranks of jars that contain the package, in ascending order
+        Map<String, List<Integer>> pkgSources = new HashMap<>();
+        for (int i = 0; i < paths.size(); i++) {
+            for (String pkg : paths.get(i).packages()) {
+                pkgSources.computeIfAbsent(pkg, p -> new ArrayList<>()).add(i);
             }
         }
 
         // Find all jars that need merging
-        // Keep track of the order jars were found in, for selecting package owners
-        List<SecureJar> jarOrder = new ArrayList<>();
+        // Jars that contain conflicting packages
+        boolean[] conflicting = new boolean[paths.size()];
         // Map of packages that need merging and their sources
-        Map<String, List<Pair<SecureJar, FabricModPath>>> mergePkgs = new LinkedHashMap<>();
-        AtomicInteger totalJars = new AtomicInteger(0);
-        pkgSources.forEach((pkg, sources) -> {
+        Map<String, List<Integer>> mergePkgs = new LinkedHashMap<>();
+        int totalJars = 0;
+        for (Map.Entry<String, List<Integer>> entry : pkgSources.entrySet()) {
+            List<Integer> sources = entry.getValue();
             if (sources.size() > 1) {
-                LOGGER.debug("Found split package {} in jars {}", pkg, sources.stream().map(info -> info.getFirst().name()).collect(Collectors.joining(",")));
-                sources.forEach(source -> {
-                    if (plainPaths.remove(source.getSecond())) {
-                        totalJars.getAndIncrement();
+                LOGGER.debug("Found split package {} in jars {}", entry.getKey(), sources.stream().map(i -> getName(paths.get(i).output())).collect(Collectors.joining(",")));
+                for (int source : sources) {
+                    if (!conflicting[source]) {
+                        conflicting[source] = true;
+                        totalJars++;
                     }
-                    mergePkgs.computeIfAbsent(pkg, p -> new ArrayList<>()).add(source);
-                    jarOrder.add(source.getFirst());
-                });
+                }
+                mergePkgs.put(entry.getKey(), sources);
             }
-        });
-        LOGGER.debug("Found {} split packages across {} jars", mergePkgs.keySet().size(), totalJars.get());
+        }
+        LOGGER.debug("Found {} split packages across {} jars", mergePkgs.keySet().size(), totalJars);
 
-        // Name -> Jar merge info
-        Map<String, JarMergeInfo> jarMap = new HashMap<>();
+        // Discovery rank -> Jar merge info
+        Map<Integer, JarMergeInfo> jarMap = new TreeMap<>();
         mergePkgs.forEach((pkg, sources) -> {
-            // Sort sources in the order jars were discovered
-            sources.sort(Comparator.comparingInt(p -> jarOrder.indexOf(p.getFirst())));
-
-            Pair<SecureJar, FabricModPath> pair = sources.get(0);
-            SecureJar candidate = pair.getFirst();
-            String name = candidate.name();
-            JarMergeInfo owner = jarMap.computeIfAbsent(name, str -> new JarMergeInfo(candidate, pair.getSecond().metadata()));
-            analyzeJar(jarMap, owner, sources.subList(1, sources.size()), pkg);
+            // Sources are already sorted in the order jars were discovered, the first one owns the package
+            int ownerRank = sources.get(0);
+            JarMergeInfo owner = jarMap.computeIfAbsent(ownerRank, i -> new JarMergeInfo(paths.get(i).output()));
+            analyzeJar(jarMap, owner, paths, sources.subList(1, sources.size()), pkg);
         });
 
         // Find packages that are already loaded, along with packages of discovered mods
@@ -101,14 +95,13 @@ public class SplitPackageMerger {
         }
         // Remove existing classpath packages
         for (String pkg : existingPackages) {
-            List<Pair<SecureJar, FabricModPath>> list = pkgSources.get(pkg);
+            List<Integer> list = pkgSources.get(pkg);
             if (list != null) {
-                for (Pair<SecureJar, FabricModPath> pair : list) {
-                    SecureJar jar = pair.getFirst();
-                    FabricModPath modPath = pair.getSecond();
-                    plainPaths.remove(modPath);
-                    JarMergeInfo info = jarMap.computeIfAbsent(jar.name(), str -> new JarMergeInfo(jar, modPath.metadata()));
-                    LOGGER.debug("Excluding existing package {} from jar {}", pkg, jar.name());
+                for (int rank : list) {
+                    FabricModPath modPath = paths.get(rank).output();
+                    conflicting[rank] = true;
+                    JarMergeInfo info = jarMap.computeIfAbsent(rank, i -> new JarMergeInfo(modPath));
+                    LOGGER.debug("Excluding existing package {} from jar {}", pkg, getName(modPath));
                     info.excludedPackages().add(pkg);
                 }
             }
@@ -119,16 +112,21 @@ public class SplitPackageMerger {
             Set<Path> additionalPaths = info.additionalPaths();
             Set<String> excludedPackages = info.excludedPackages();
             UnionPathFilter filter = !excludedPackages.isEmpty() ? new PackageTracker(Set.copyOf(excludedPackages)) : null;
-            Path[] jarPaths = Stream.concat(Stream.of(info.jar().getPrimaryPath()), additionalPaths.stream()).toArray(Path[]::new);
-            output.add(new FilteredModPath(jarPaths, filter, info.metadata));
+            Path[] jarPaths = Stream.concat(Stream.of(info.modPath().path()), additionalPaths.stream()).toArray(Path[]::new);
+            output.add(new FilteredModPath(jarPaths, filter, info.modPath().metadata()));
         });
 
         // Add unprocessed paths to output
-        for (FabricModPath modPath : plainPaths) {
-            output.add(new FilteredModPath(new Path[] { modPath.path() }, null, modPath.metadata()));
+        int plainPaths = 0;
+        for (int i = 0; i < paths.size(); i++) {
+            if (!conflicting[i]) {
+                FabricModPath modPath = paths.get(i).output();
+                output.add(new FilteredModPath(new Path[] { modPath.path() }, null, modPath.metadata()));
+                plainPaths++;
+            }
         }
         if (paths.size() != output.size()) {
-            LOGGER.error("Expected {} paths, got {}", paths.size(), plainPaths.size());
+            LOGGER.error("Expected {} paths, got {}", paths.size(), plainPaths);
             throw new IllegalStateException("Path size disprenancy detected!");
         }
 
@@ -140,24 +138,28 @@ public class SplitPackageMerger {
      *
      * @param swap   jar merge info map to write information to, must be mutable
      * @param master the package owner jar
-     * @param others the remaining package sources
+     * @param paths  all processed jars, indexed by discovery rank
+     * @param others discovery ranks of the remaining package sources
      * @param pkg    the package to look filter out
      */
-    private static void analyzeJar(Map<String, JarMergeInfo> swap, JarMergeInfo master, List<Pair<SecureJar, FabricModPath>> others, String pkg) {
+    private static void analyzeJar(Map<Integer, JarMergeInfo> swap, JarMergeInfo master, List<JarTransformer.TransformedFabricModPath> paths, List<Integer> others, String pkg) {
         List<Path> additionalPaths = others.stream()
-            .flatMap(pair -> {
-                SecureJar sj = pair.getFirst();
-                JarTransformer.FabricModFileMetadata metadata = pair.getSecond().metadata();
-                JarContents jarContents = new JarContentsBuilder().paths(sj.getPrimaryPath()).pathFilter(singlePackageFilter(pkg)).build();
+            .map(rank -> {
+                FabricModPath modPath = paths.get(rank).output();
+                JarContents jarContents = new JarContentsBuilder().paths(modPath.path()).pathFilter(singlePackageFilter(pkg)).build();
                 SecureJar singlePackage = SecureJar.from(jarContents);
-                JarMergeInfo jarInfo = swap.computeIfAbsent(sj.name(), name -> new JarMergeInfo(sj, metadata));
+                JarMergeInfo jarInfo = swap.computeIfAbsent(rank, i -> new JarMergeInfo(modPath));
                 jarInfo.excludedPackages().add(pkg);
-                return Stream.of(singlePackage.getRootPath());
+                return singlePackage.getRootPath();
             })
             .toList();
         master.additionalPaths().addAll(additionalPaths);
     }
 
+    private static String getName(FabricModPath modPath) {
+        return modPath.path().getFileName().toString();
+    }
+
     /**
      * {@return a filter that only matches files in a single java package and in the root of the jar}
      *
@@ -177,14 +179,13 @@ public class SplitPackageMerger {
 
     /**
      * Keeps track of pending package merging modifications that should be done to a jar.
-     * @param jar the jar containing the package
-     * @param metadata fabric mod metadata of the jar's mod
+     * @param modPath the jar containing the package, along with its fabric mod metadata
      * @param additionalPaths additional paths to include in the jar
      * @param excludedPackages packages to exlude from the jar
      */
-    private record JarMergeInfo(SecureJar jar, JarTransformer.FabricModFileMetadata metadata, Set<Path> additionalPaths, Set<String> excludedPackages) {
-        public JarMergeInfo(SecureJar jar, JarTransformer.FabricModFileMetadata metadata) {
-            this(jar, metadata, new HashSet<>(), new HashSet<>());
+    private record JarMergeInfo(FabricModPath modPath, Set<Path> additionalPaths, Set<String> excludedPackages) {
+        public JarMergeInfo(FabricModPath modPath) {
+            this(modPath, new LinkedHashSet<>(), new HashSet<>());
         }
     }
 
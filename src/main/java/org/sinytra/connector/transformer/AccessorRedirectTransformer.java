@@ -1,7 +1,6 @@
 package org.sinytra.connector.transformer;
 
 import net.minecraftforge.srgutils.IMappingFile;
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.MethodInsnNode;
@@ -10,24 +9,17 @@ import org.sinytra.adapter.patch.api.MethodContext;
 import org.sinytra.adapter.patch.api.Patch;
 import org.sinytra.adapter.patch.api.PatchContext;
 import org.sinytra.adapter.patch.api.PatchEnvironment;
-import org.sinytra.connector.transformer.patch.ClassNodeTransformer;
+import org.sinytra.connector.transformer.jar.JarAnalysis;
+import org.sinytra.connector.transformer.patch.ClassProcessor;
 import org.sinytra.connector.transformer.patch.RedirectAccessorToMethod;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Stream;
+import java.util.TreeMap;
 
-import static cpw.mods.modlauncher.api.LambdaExceptionUtils.rethrowConsumer;
-
-public class AccessorRedirectTransformer implements ClassNodeTransformer.ClassProcessor {
+public class AccessorRedirectTransformer implements ClassProcessor {
     private static final String PREFIX = "connector$redirect$";
     public static final List<? extends Patch> PATCHES = FieldToMethodTransformer.REPLACEMENTS.entrySet().stream()
         .flatMap(entry -> entry.getValue().values().stream()
@@ -49,7 +41,7 @@ public class AccessorRedirectTransformer implements ClassNodeTransformer.ClassPr
         this.mappings = mappings;
     }
 
-    public void analyze(File input, Set<String> mixinPackages, PatchEnvironment environment) throws IOException {
+    public void analyze(JarAnalysis analysis, PatchEnvironment environment) {
         List<? extends Patch> accessorAnalysisPatches = FieldToMethodTransformer.REPLACEMENTS.entrySet().stream()
             .flatMap(entry -> entry.getValue().keySet().stream()
                 .map(s -> Patch.interfaceBuilder()
@@ -59,21 +51,32 @@ public class AccessorRedirectTransformer implements ClassNodeTransformer.ClassPr
                     .build()))
             .toList();
 
-        try (FileSystem fs = FileSystems.newFileSystem(input.toPath(), Map.of())) {
-            for (String pkg : mixinPackages) {
-                Path packageRoot = fs.getPath(pkg);
-                if (Files.notExists(packageRoot)) {
-                    continue;
-                }
-                try (Stream<Path> stream = Files.walk(packageRoot)) {
-                    stream
-                        .filter(path -> path.getFileName().toString().endsWith(".class"))
-                        .forEach(rethrowConsumer(path -> analyzeClass(path, accessorAnalysisPatches, environment)));
+        for (ClassNode node : analysis.getMixinClasses().values()) {
+            // Analysis patches only match accessor methods
+            if (analysis.hasAccessors(node.name)) {
+                for (Patch patch : accessorAnalysisPatches) {
+                    patch.apply(node, environment);
                 }
             }
         }
     }
 
+    /**
+     * {@return internal names of classes whose accessor method calls are redirected}
+     */
+    public Set<String> getRedirectedOwners() {
+        return this.methodRenames.keySet();
+    }
+
+    /**
+     * {@return a stable representation of collected accessor renames, used as part of class cache keys}
+     */
+    public String getCacheContext() {
+        StringBuilder builder = new StringBuilder();
+        new TreeMap<>(this.methodRenames).forEach((owner, renames) -> builder.append(owner).append(new TreeMap<>(renames)));
+        return builder.toString();
+    }
+
     @Override
     public Patch.Result process(ClassNode node) {
         boolean applied = false;
@@ -94,17 +97,6 @@ public class AccessorRedirectTransformer implements ClassNodeTransformer.ClassPr
         return applied ? Patch.Result.APPLY : Patch.Result.PASS;
     }
 
-    private void analyzeClass(Path path, List<? extends Patch> accessorAnalysisPatches, PatchEnvironment environment) throws IOException {
-        byte[] bytes = Files.readAllBytes(path);
-        ClassReader reader = new ClassReader(bytes);
-        ClassNode node = new ClassNode();
-        reader.accept(node, ClassReader.SKIP_CODE);
-
-        for (Patch patch : accessorAnalysisPatches) {
-            patch.apply(node, environment);
-        }
-    }
-
     private Patch.Result analyzeAccessor(ClassNode classNode, MethodNode methodNode, MethodContext methodContext, PatchContext context) {
         this.methodRenames.computeIfAbsent(classNode.name, s -> new HashMap<>())
             .put(methodNode.name + methodNode.desc, PREFIX + methodNode.name);
@@ -15,7 +15,7 @@ import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.MethodInsnNode;
 import org.objectweb.asm.tree.MethodNode;
 import org.sinytra.adapter.patch.api.Patch;
-import org.sinytra.connector.transformer.patch.ClassNodeTransformer;
+import org.sinytra.connector.transformer.patch.ClassProcessor;
 import org.slf4j.Logger;
 
 import java.util.Collection;
@@ -23,7 +23,7 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Objects;
 
-public class FieldToMethodTransformer implements ClassNodeTransformer.ClassProcessor {
+public class FieldToMethodTransformer implements ClassProcessor {
     public static final Map<String, Map<String, String>> REPLACEMENTS = ImmutableMap.<String, Map<String, String>>builder()
         // Extracted from forge's coremods/field_to_method.js
         .put("net.minecraft.world.level.biome.Biome", Map.of(
@@ -0,0 +1,156 @@
+package org.sinytra.connector.transformer;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Suppliers;
+import com.mojang.logging.LogUtils;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Index of JSON resources available on the renamer library classpath, used to locate refmaps that aren't shipped inside a mod,
+ * and of the libraries providing each class.
+ * <p>
+ * The index is built on first use by reading the entry table of each library once. Library jars are kept open until
+ * the index is closed, so that resources can be read without creating a new zip file system per lookup.
+ */
+public class LibraryResourceIndex implements Closeable {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final String RESOURCE_EXTENSION = ".json";
+    private static final String CLASS_EXTENSION = ".class";
+
+    private final List<Path> libs;
+    private final List<ZipFile> openFiles = new ArrayList<>();
+    private final Supplier<Index> index = Suppliers.memoize(this::buildIndex);
+
+    public LibraryResourceIndex(List<Path> libs) {
+        this.libs = libs;
+    }
+
+    /**
+     * Read a resource from the first library that contains it.
+     *
+     * @param name    the resource path
+     * @param exclude a library to ignore
+     * @return the resource contents, or {@code null} if it wasn't found
+     */
+    @Nullable
+    public byte[] read(String name, Path exclude) throws IOException {
+        List<Source> sources = this.index.get().resources().get(name);
+        if (sources != null) {
+            for (Source source : sources) {
+                if (!source.lib().equals(exclude)) {
+                    return source.read(name);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * {@return the first library containing a class, or {@code null} if it isn't on the library classpath}
+     *
+     * @param name internal class name
+     */
+    @Nullable
+    public Path getClassSource(String name) {
+        return this.index.get().classes().get(name);
+    }
+
+    private Index buildIndex() {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        Map<String, List<Source>> index = new HashMap<>();
+        Map<String, Path> classes = new HashMap<>();
+        for (Path lib : this.libs) {
+            try {
+                if (lib.getFileSystem() == FileSystems.getDefault() && Files.isRegularFile(lib)) {
+                    ZipFile zipFile = new ZipFile(lib.toFile());
+                    this.openFiles.add(zipFile);
+                    Source source = new ZipSource(lib, zipFile);
+                    Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                    while (entries.hasMoreElements()) {
+                        ZipEntry entry = entries.nextElement();
+                        if (!entry.isDirectory() && entry.getName().endsWith(RESOURCE_EXTENSION)) {
+                            index.computeIfAbsent(entry.getName(), n -> new ArrayList<>(1)).add(source);
+                        }
+                        else if (!entry.isDirectory() && entry.getName().endsWith(CLASS_EXTENSION)) {
+                            classes.putIfAbsent(getClassName(entry.getName()), lib);
+                        }
+                    }
+                }
+                else if (Files.isDirectory(lib)) {
+                    Source source = new DirectorySource(lib);
+                    try (Stream<Path> stream = Files.walk(lib)) {
+                        stream
+                            .filter(path -> path.getFileName() != null && Files.isRegularFile(path))
+                            .forEach(path -> {
+                                String name = lib.relativize(path).toString().replace('\\', '/');
+                                if (name.endsWith(RESOURCE_EXTENSION)) {
+                                    index.computeIfAbsent(name, n -> new ArrayList<>(1)).add(source);
+                                }
+                                else if (name.endsWith(CLASS_EXTENSION)) {
+                                    classes.putIfAbsent(getClassName(name), lib);
+                                }
+                            });
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.error("Error indexing library {}", lib, e);
+            }
+        }
+        LOGGER.debug("Indexed {} library resources and {} classes in {} ms", index.size(), classes.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        return new Index(index, classes);
+    }
+
+    private static String getClassName(String entryName) {
+        return entryName.substring(0, entryName.length() - CLASS_EXTENSION.length());
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (ZipFile zipFile : this.openFiles) {
+            zipFile.close();
+        }
+        this.openFiles.clear();
+    }
+
+    private record Index(Map<String, List<Source>> resources, Map<String, Path> classes) {}
+
+    private interface Source {
+        Path lib();
+
+        byte[] read(String name) throws IOException;
+    }
+
+    private record ZipSource(Path lib, ZipFile zipFile) implements Source {
+        @Override
+        public byte[] read(String name) throws IOException {
+            try (InputStream is = this.zipFile.getInputStream(this.zipFile.getEntry(name))) {
+                return is.readAllBytes();
+            }
+        }
+    }
+
+    private record DirectorySource(Path lib) implements Source {
+        @Override
+        public byte[] read(String name) throws IOException {
+            return Files.readAllBytes(this.lib.resolve(name));
+        }
+    }
+}
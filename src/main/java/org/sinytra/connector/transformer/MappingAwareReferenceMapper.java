@@ -1,33 +1,33 @@
 package org.sinytra.connector.transformer;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Maps;
 import com.google.gson.GsonBuilder;
 import net.minecraftforge.srgutils.IMappingFile;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.BiFunction;
-import java.util.function.Function;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 public class MappingAwareReferenceMapper {
-    private static final Pattern METHOD_REF_PATTERN = Pattern.compile("^(?<owner>L.+?;)?+(?<name>[\\w$<>]+)?(?<desc>\\((?:\\[*(?:[ZCBSIFJD]|L[\\w/$]+;))*\\)(?:\\[*(?:[VZCBSIFJD]|L[\\w/$]+;)))?$");
-    private static final Pattern FIELD_REF_PATTERN = Pattern.compile("^(?<owner>L[\\w/$]+;)?(?<name>\\w+):(?<desc>.+)$");
+    private static final int MAX_CACHED_REFERENCES = 1 << 16;
+    private static final String PRIMITIVE_TYPES = "ZCBSIFJD";
+    // Lookup tables are shared between all reference mappers using the same mapping file
+    private static final Cache<IMappingFile, ReferenceTables> TABLES = CacheBuilder.newBuilder().weakKeys().build();
 
     private final IMappingFile mappingFile;
-    private final Map<String, IMappingFile.IMethod> methods;
-    private final Map<String, IMappingFile.IField> fields;
+    private final ReferenceTables tables;
 
     public MappingAwareReferenceMapper(IMappingFile mappingFile) {
         this.mappingFile = mappingFile;
-        this.methods = this.mappingFile.getClasses().stream()
-            .flatMap(cls -> cls.getMethods().stream())
-            .collect(Collectors.toMap(m -> m.getOriginal() + m.getDescriptor(), Function.identity(), (a, b) -> a));
-        this.fields = this.mappingFile.getClasses().stream()
-            .flatMap(cls -> cls.getFields().stream())
-            .collect(Collectors.toMap(IMappingFile.INode::getOriginal, Function.identity(), (a, b) -> a));
+        try {
+            this.tables = TABLES.get(mappingFile, () -> ReferenceTables.create(mappingFile));
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     public SimpleRefmap remap(SimpleRefmap refmap, Map<String, String> replacements) {
@@ -54,29 +54,154 @@ public class MappingAwareReferenceMapper {
     }
 
     private String remapRef(String reference) {
-        Matcher methodMatcher = METHOD_REF_PATTERN.matcher(reference);
-        if (methodMatcher.matches()) {
-            return remapRefMapEntry(methodMatcher, "", (name, desc) -> this.methods.get(name + desc));
+        // The same targets are commonly referenced by many mixins and mods
+        String cached = this.tables.references().get(reference);
+        if (cached != null) {
+            return cached;
+        }
+        String mapped = computeRemappedRef(reference);
+        if (this.tables.references().size() < MAX_CACHED_REFERENCES) {
+            this.tables.references().put(reference, mapped);
         }
-        Matcher fieldMatcher = FIELD_REF_PATTERN.matcher(reference);
-        if (fieldMatcher.matches()) {
-            return remapRefMapEntry(fieldMatcher, ":", (name, desc) -> this.fields.get(name));
+        return mapped;
+    }
+
+    private String computeRemappedRef(String reference) {
+        // Method reference: [Lowner;][name][(args)return]
+        int length = reference.length();
+        int ownerEnd = reference.startsWith("L") ? reference.indexOf(';', 2) + 1 : 0;
+        int nameEnd = ownerEnd;
+        while (nameEnd < length && isMethodNameChar(reference.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        if (nameEnd == length || reference.charAt(nameEnd) == '(' && parseMethodDescriptor(reference, nameEnd) == length) {
+            String name = nameEnd > ownerEnd ? reference.substring(ownerEnd, nameEnd) : null;
+            String desc = nameEnd < length ? reference.substring(nameEnd) : null;
+            IMappingFile.IMethod method = name != null ? this.tables.methods().get(name + desc) : null;
+            return remapRefMapEntry(reference.substring(0, ownerEnd), method, name, desc, "");
+        }
+        // Field reference: [Lowner;]name:desc
+        int classEnd = reference.startsWith("L") ? parseClassName(reference, 1) : -1;
+        int fieldOwnerEnd = classEnd != -1 && classEnd < length && reference.charAt(classEnd) == ';' ? classEnd + 1 : -1;
+        int separator = fieldOwnerEnd != -1 ? parseFieldName(reference, fieldOwnerEnd) : -1;
+        if (separator == -1) {
+            fieldOwnerEnd = 0;
+            separator = parseFieldName(reference, 0);
+        }
+        if (separator != -1) {
+            String name = reference.substring(fieldOwnerEnd, separator);
+            String desc = reference.substring(separator + 1);
+            return remapRefMapEntry(reference.substring(0, fieldOwnerEnd), this.tables.fields().get(name), name, desc, ":");
         }
         return this.mappingFile.remapClass(reference);
     }
 
-    private <T extends IMappingFile.INode> String remapRefMapEntry(Matcher matcher, String separator, BiFunction<String, String, T> nodeFunction) {
-        String owner = matcher.group("owner");
-        String name = matcher.group("name");
-        String desc = matcher.group("desc");
-        T node = name != null ? nodeFunction.apply(name, desc) : null;
+    private String remapRefMapEntry(String owner, @Nullable IMappingFile.INode node, @Nullable String name, @Nullable String desc, String separator) {
         String mappedName = node != null ? node.getMapped() : name != null ? name : "";
-
-        String mappedOwner = owner != null ? this.mappingFile.remapDescriptor(owner) : "";
+        String mappedOwner = !owner.isEmpty() ? this.mappingFile.remapDescriptor(owner) : "";
         String mappedDesc = desc != null ? this.mappingFile.remapDescriptor(desc) : "";
         return mappedOwner + mappedName + separator + mappedDesc;
     }
 
+    /**
+     * {@return the end index of a method descriptor starting at {@code start}, or {@code -1} if it is malformed}
+     */
+    private static int parseMethodDescriptor(String str, int start) {
+        int pos = start + 1;
+        while (pos < str.length() && str.charAt(pos) != ')') {
+            pos = parseType(str, pos, false);
+            if (pos == -1) {
+                return -1;
+            }
+        }
+        return pos < str.length() ? parseType(str, pos + 1, true) : -1;
+    }
+
+    /**
+     * {@return the end index of a type descriptor starting at {@code start}, or {@code -1} if it is malformed}
+     */
+    private static int parseType(String str, int start, boolean allowVoid) {
+        int pos = start;
+        while (pos < str.length() && str.charAt(pos) == '[') {
+            pos++;
+        }
+        if (pos >= str.length()) {
+            return -1;
+        }
+        char c = str.charAt(pos);
+        if (PRIMITIVE_TYPES.indexOf(c) != -1 || allowVoid && c == 'V') {
+            return pos + 1;
+        }
+        if (c == 'L') {
+            int end = parseClassName(str, pos + 1);
+            return end != -1 && end < str.length() && str.charAt(end) == ';' ? end + 1 : -1;
+        }
+        return -1;
+    }
+
+    /**
+     * {@return the end index of a non-empty internal class name starting at {@code start}, or {@code -1} if there is none}
+     */
+    private static int parseClassName(String str, int start) {
+        int pos = start;
+        while (pos < str.length() && (isWordChar(str.charAt(pos)) || str.charAt(pos) == '/' || str.charAt(pos) == '$')) {
+            pos++;
+        }
+        return pos > start ? pos : -1;
+    }
+
+    /**
+     * {@return the index of the separator following a non-empty field name starting at {@code start}, or {@code -1} if there is none}
+     */
+    private static int parseFieldName(String str, int start) {
+        int pos = start;
+        while (pos < str.length() && isWordChar(str.charAt(pos))) {
+            pos++;
+        }
+        if (pos == start || pos + 1 >= str.length() || str.charAt(pos) != ':') {
+            return -1;
+        }
+        // The descriptor may contain anything but line breaks
+        for (int i = pos + 1; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return -1;
+            }
+        }
+        return pos;
+    }
+
+    private static boolean isMethodNameChar(char c) {
+        return isWordChar(c) || c == '$' || c == '<' || c == '>';
+    }
+
+    private static boolean isWordChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+    }
+
+    /**
+     * Immutable member lookup tables of a mapping file, along with remapped references memoized across all jars.
+     *
+     * @param methods    methods by original name and descriptor
+     * @param fields     fields by original name
+     * @param references remapped references
+     */
+    private record ReferenceTables(Map<String, IMappingFile.IMethod> methods, Map<String, IMappingFile.IField> fields, Map<String, String> references) {
+        static ReferenceTables create(IMappingFile mappingFile) {
+            Map<String, IMappingFile.IMethod> methods = new HashMap<>();
+            Map<String, IMappingFile.IField> fields = new HashMap<>();
+            for (IMappingFile.IClass cls : mappingFile.getClasses()) {
+                for (IMappingFile.IMethod method : cls.getMethods()) {
+                    methods.putIfAbsent(method.getOriginal() + method.getDescriptor(), method);
+                }
+                for (IMappingFile.IField field : cls.getFields()) {
+                    fields.putIfAbsent(field.getOriginal(), field);
+                }
+            }
+            return new ReferenceTables(Map.copyOf(methods), Map.copyOf(fields), new ConcurrentHashMap<>());
+        }
+    }
+
     public static class SimpleRefmap {
         public final Map<String, Map<String, String>> mappings;
         public final Map<String, Map<String, Map<String, String>>> data;
@@ -0,0 +1,144 @@
+package org.sinytra.connector.transformer;
+
+import com.mojang.logging.LogUtils;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.sinytra.adapter.patch.api.MixinConstants;
+import org.sinytra.adapter.patch.api.Patch;
+import org.sinytra.adapter.patch.api.RefmapHolder;
+import org.slf4j.Logger;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps mixin target classes to the patches that may apply to them, so that each mixin only evaluates
+ * candidate patches instead of every known patch. Patches without a class target restriction are evaluated for all mixins.
+ * Candidate patches are always returned in their original order.
+ * <p>
+ * The adapter does not expose patch target classes publicly, so they are read reflectively. Patches whose targets
+ * can't be read are treated as untargeted, which is always safe. Set {@code connector.verifyPatchIndex} to dry-run
+ * excluded patches on every mixin and report any that would have applied.
+ */
+public class MixinPatchIndex {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final String TARGET_CLASSES_FIELD = "targetClasses";
+
+    private final List<Patch> patches;
+    // Target class internal name -> indices of patches in the patches list
+    private final Map<String, BitSet> targeted = new HashMap<>();
+    // Indices of patches that may apply to any class
+    private final BitSet untargeted = new BitSet();
+    // Patch classes whose target classes could not be read
+    private final Set<Class<?>> unreadable = new HashSet<>();
+
+    public MixinPatchIndex(List<? extends Patch> patches) {
+        this.patches = List.copyOf(patches);
+        for (int i = 0; i < this.patches.size(); i++) {
+            Collection<String> targets = getTargetClasses(this.patches.get(i));
+            if (targets == null || targets.isEmpty()) {
+                this.untargeted.set(i);
+            }
+            else {
+                for (String target : targets) {
+                    this.targeted.computeIfAbsent(target.replace('.', '/'), s -> new BitSet()).set(i);
+                }
+            }
+        }
+        LOGGER.debug("Indexed {} mixin patches for {} target classes, {} patches are untargeted", this.patches.size(), this.targeted.size(), this.untargeted.cardinality());
+        if (!this.patches.isEmpty() && this.targeted.isEmpty()) {
+            LOGGER.warn("Could not index any mixin patches by target class, all {} patches will be evaluated for every mixin", this.patches.size());
+        }
+    }
+
+    /**
+     * {@return all indexed patches, in their original order}
+     */
+    public List<Patch> getPatches() {
+        return this.patches;
+    }
+
+    /**
+     * {@return patches that could apply to the given mixin class, in their original order}
+     *
+     * @param node          the mixin class
+     * @param refmapHolder  refmap used to resolve string mixin targets
+     */
+    public List<Patch> getCandidates(ClassNode node, RefmapHolder refmapHolder) {
+        BitSet candidates = (BitSet) this.untargeted.clone();
+        for (String target : getMixinTargets(node, refmapHolder)) {
+            BitSet patches = this.targeted.get(target);
+            if (patches != null) {
+                candidates.or(patches);
+            }
+        }
+        List<Patch> list = new ArrayList<>(candidates.cardinality());
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            list.add(this.patches.get(i));
+        }
+        return list;
+    }
+
+    static Set<String> getMixinTargets(ClassNode node, RefmapHolder refmapHolder) {
+        Set<String> targets = new HashSet<>();
+        if (node.invisibleAnnotations != null) {
+            for (AnnotationNode annotation : node.invisibleAnnotations) {
+                if (annotation.desc.equals(MixinConstants.MIXIN) && annotation.values != null) {
+                    for (int i = 0; i < annotation.values.size(); i += 2) {
+                        String key = (String) annotation.values.get(i);
+                        if (annotation.values.get(i + 1) instanceof List<?> list) {
+                            for (Object value : list) {
+                                if ("value".equals(key) && value instanceof Type type) {
+                                    targets.add(type.getInternalName());
+                                }
+                                else if ("targets".equals(key) && value instanceof String str) {
+                                    targets.add(str.replace('.', '/'));
+                                    targets.add(refmapHolder.remap(node.name, str).replace('.', '/'));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return targets;
+    }
+
+    // Patch target classes are not part of the public patch API, so we read them reflectively.
+    // A null result marks the patch as untargeted, which is always safe.
+    @SuppressWarnings("unchecked")
+    private Collection<String> getTargetClasses(Patch patch) {
+        for (Class<?> cls = patch.getClass(); cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            try {
+                Field field = cls.getDeclaredField(TARGET_CLASSES_FIELD);
+                field.setAccessible(true);
+                if (field.get(patch) instanceof Collection<?> collection && collection.stream().allMatch(String.class::isInstance)) {
+                    return (Collection<String>) collection;
+                }
+                if (this.unreadable.add(patch.getClass())) {
+                    LOGGER.warn("Unexpected target classes of mixin patch type {}, patches of this type will not be indexed", patch.getClass().getName());
+                }
+                return null;
+            } catch (NoSuchFieldException ignored) {
+                // Try superclass
+            } catch (Throwable t) {
+                if (this.unreadable.add(patch.getClass())) {
+                    LOGGER.warn("Error reading target classes of mixin patch type {}, patches of this type will not be indexed", patch.getClass().getName(), t);
+                }
+                return null;
+            }
+        }
+        if (this.unreadable.add(patch.getClass())) {
+            LOGGER.debug("Mixin patch type {} has no target classes, patches of this type will not be indexed", patch.getClass().getName());
+        }
+        return null;
+    }
+}
@@ -11,15 +11,20 @@ import net.minecraftforge.fart.api.Transformer;
 import net.neoforged.neoforgespi.locating.IModFile;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AnnotationNode;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
 import org.sinytra.adapter.patch.LVTOffsets;
 import org.sinytra.adapter.patch.api.ClassTransform;
 import org.sinytra.adapter.patch.api.MixinClassGenerator;
 import org.sinytra.adapter.patch.api.MixinConstants;
 import org.sinytra.adapter.patch.api.Patch;
+import org.sinytra.adapter.patch.api.PatchAuditTrail;
 import org.sinytra.adapter.patch.api.PatchContext;
 import org.sinytra.adapter.patch.api.PatchEnvironment;
+import org.sinytra.adapter.patch.api.RefmapHolder;
 import org.sinytra.adapter.patch.fixes.FieldTypePatchTransformer;
 import org.sinytra.adapter.patch.fixes.FieldTypeUsageTransformer;
 import org.sinytra.adapter.patch.transformer.dynamic.DynamicAnonymousShadowFieldTypePatch;
@@ -29,6 +34,8 @@ import org.sinytra.adapter.patch.transformer.dynamic.DynamicLVTPatch;
 import org.sinytra.adapter.patch.transformer.dynamic.DynamicModifyVarAtReturnPatch;
 import org.sinytra.adapter.patch.transformer.dynamic.DynamicSyntheticInstanceofPatch;
 import org.sinytra.adapter.patch.transformer.dynfix.DynamicInjectionPointPatch;
+import org.sinytra.connector.transformer.jar.ClassHierarchy;
+import org.sinytra.connector.transformer.patch.ConnectorRefmapHolder;
 import org.sinytra.connector.transformer.patch.EnvironmentStripperTransformer;
 import org.sinytra.connector.util.ConnectorUtil;
 import org.slf4j.Logger;
@@ -40,11 +47,20 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Stream;
 
 import static cpw.mods.modlauncher.api.LambdaExceptionUtils.rethrowConsumer;
@@ -63,36 +79,78 @@ public class MixinPatchTransformer implements Transformer {
         .transform(CLASS_TRANSFORMS)
         .build();
     private static final Logger LOGGER = LogUtils.getLogger();
+    // Dry-run patches excluded by the patch index to detect mixins it fails to match
+    private static final boolean VERIFY_PATCH_INDEX = Boolean.getBoolean("connector.verifyPatchIndex");
     private static boolean completedSetup = false;
 
-    private final PatchEnvironment environment;
-    private final List<? extends Patch> patches;
+    private final EnvironmentFactory environmentFactory;
+    private final ConnectorRefmapHolder refmapHolder;
+    private final PatchAuditTrail auditTrail;
+    private final MixinPatchIndex patchIndex;
+    private final ClassHierarchy classHierarchy;
+    // Target-agnostic dynamic patches, applied after indexed patches
+    private final List<Patch> dynamicPatches;
+    // Per-jar patch state is partitioned by mixin target class, so that all mixins of a target are patched by the
+    // same worker and generate their mixin classes in a single environment. Workers are merged once all classes have been processed.
+    private final AtomicReferenceArray<Worker> workers;
+    // Non-mixin classes changed by class transforms, whose output depends on BFU state
+    private final Set<String> transformedClasses = ConcurrentHashMap.newKeySet();
+    private Map<String, MixinClassGenerator.GeneratedClass> generatedMixinClasses;
+    private Map<String, PatchEnvironment> generatedMixinEnvironments;
 
-    public MixinPatchTransformer(LVTOffsets lvtOffsets, PatchEnvironment environment, List<? extends Patch> adapterPatches) {
-        this.environment = environment;
-        this.patches = ImmutableList.<Patch>builder()
+    /**
+     * @param lvtOffsets         LVT offsets data used by dynamic patches
+     * @param environmentFactory creates the patch environment of each worker
+     * @param refmapHolder       refmaps of the jar, forked for each worker
+     * @param auditTrail         audit trail of the jar, into which worker trails are merged on finalization
+     * @param patchIndex         index of static and adapter patches
+     * @param classHierarchy     hierarchy used to compute frames
+     * @param partitions         number of workers classes are partitioned across, {@code 1} when classes are processed serially
+     */
+    public MixinPatchTransformer(LVTOffsets lvtOffsets, EnvironmentFactory environmentFactory, ConnectorRefmapHolder refmapHolder, PatchAuditTrail auditTrail, MixinPatchIndex patchIndex, ClassHierarchy classHierarchy, int partitions) {
+        this.workers = new AtomicReferenceArray<>(Math.max(1, partitions));
+        this.environmentFactory = environmentFactory;
+        this.refmapHolder = refmapHolder;
+        this.auditTrail = auditTrail;
+        this.patchIndex = patchIndex;
+        this.classHierarchy = classHierarchy;
+        this.dynamicPatches = List.of(
+            Patch.builder()
+                .transform(new DynamicInjectorOrdinalPatch())
+                .transform(new DynamicLVTPatch(() -> lvtOffsets))
+                .transform(new DynamicAnonymousShadowFieldTypePatch())
+                .transform(new DynamicModifyVarAtReturnPatch())
+                .transform(new DynamicInheritedInjectionPointPatch())
+                .transform(new DynamicSyntheticInstanceofPatch())
+                .transform(new DynamicInjectionPointPatch())
+                .build(),
+            Patch.interfaceBuilder()
+                .transform(new FieldTypePatchTransformer())
+                .build()
+        );
+    }
+
+    /**
+     * Index static and adapter patches by their target classes. The index is immutable and can be shared across jars.
+     *
+     * @param adapterPatches additional patches applied between priority and regular patches
+     * @return the patch index
+     */
+    public static MixinPatchIndex createPatchIndex(List<? extends Patch> adapterPatches) {
+        return new MixinPatchIndex(ImmutableList.<Patch>builder()
             .addAll(PRIORITY_PATCHES)
             .addAll(adapterPatches)
             .addAll(PATCHES)
-            .add(
-                Patch.builder()
-                    .transform(new DynamicInjectorOrdinalPatch())
-                    .transform(new DynamicLVTPatch(() -> lvtOffsets))
-                    .transform(new DynamicAnonymousShadowFieldTypePatch())
-                    .transform(new DynamicModifyVarAtReturnPatch())
-                    .transform(new DynamicInheritedInjectionPointPatch())
-                    .transform(new DynamicSyntheticInstanceofPatch())
-                    .transform(new DynamicInjectionPointPatch())
-                    .build(),
-                Patch.interfaceBuilder()
-                    .transform(new FieldTypePatchTransformer())
-                    .build()
-            )
-            .build();
+            .build());
     }
 
-    public void finalize(Path zipRoot, Collection<String> configs, Map<String, MappingAwareReferenceMapper.SimpleRefmap> refmapFiles, Set<String> dirtyRefmaps) throws IOException {
-        Map<String, MixinClassGenerator.GeneratedClass> generatedMixinClasses = this.environment.classGenerator().getGeneratedMixinClasses();
+    public void finalize(Path zipRoot, Collection<String> configs, Map<String, MappingAwareReferenceMapper.SimpleRefmap> refmapFiles) throws IOException {
+        Set<String> dirtyRefmaps = new HashSet<>(this.refmapHolder.getDirtyRefmaps());
+        for (Worker worker : getWorkers()) {
+            dirtyRefmaps.addAll(worker.refmapHolder().getDirtyRefmaps());
+            this.auditTrail.merge(worker.auditTrail());
+        }
+        Map<String, MixinClassGenerator.GeneratedClass> generatedMixinClasses = new TreeMap<>(getGeneratedMixinClasses());
         if (!generatedMixinClasses.isEmpty()) {
             for (String config : configs) {
                 Path entry = zipRoot.resolve(config);
@@ -162,13 +220,14 @@ public class MixinPatchTransformer implements Transformer {
 
     private Map<String, MixinClassGenerator.GeneratedClass> getMixinsInPackage(String mixinPackage, Map<String, MixinClassGenerator.GeneratedClass> generatedMixinClasses) {
         Map<String, MixinClassGenerator.GeneratedClass> classes = new HashMap<>();
-        for (Map.Entry<String, MixinClassGenerator.GeneratedClass> entry : generatedMixinClasses.entrySet()) {
-            String name = entry.getKey();
-            String className = name.replace('/', '.');
+        Iterator<Map.Entry<String, MixinClassGenerator.GeneratedClass>> iterator = generatedMixinClasses.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, MixinClassGenerator.GeneratedClass> entry = iterator.next();
+            String className = entry.getKey().replace('/', '.');
             if (className.startsWith(mixinPackage)) {
                 String specificPart = className.substring(mixinPackage.length() + 1);
                 classes.put(specificPart, entry.getValue());
-                generatedMixinClasses.remove(name);
+                iterator.remove();
             }
         }
         return classes;
@@ -204,37 +263,203 @@ public class MixinPatchTransformer implements Transformer {
 
     @Override
     public ClassEntry process(ClassEntry entry) {
-        Patch.Result patchResult = Patch.Result.PASS;
-
         ClassReader reader = new ClassReader(entry.getData());
         ClassNode node = new ClassNode();
         reader.accept(node, 0);
 
-        // Some mods generate their mixin configs at runtime, therefore we must scan all classes
-        // regardless of whether they're listed in present config files (see Andromeda)
-        if (isMixinClass(node)) {
-            patchResult = patchResult.or(CLASS_PATCH.apply(node, this.environment));
-
-            for (Patch patch : this.patches) {
-                patchResult = patchResult.or(patch.apply(node, this.environment));
-            }
-        }
-        else {
-            for (ClassTransform transform : CLASS_TRANSFORMS) {
-                patchResult = patchResult.or(transform.apply(node, null, PatchContext.create(node, List.of(), this.environment)));
-            }
-        }
+        Patch.Result patchResult = patchClass(node);
 
         // TODO if a mixin method is extracted, roll back the status from compute frames to apply,
         // Alternatively, change the order of patches so that extractmixin comes first
         if (patchResult != Patch.Result.PASS) {
-            ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS | (patchResult == Patch.Result.COMPUTE_FRAMES ? ClassWriter.COMPUTE_FRAMES : 0));
+            ClassWriter writer = this.classHierarchy.createWriter(ClassWriter.COMPUTE_MAXS | (patchResult == Patch.Result.COMPUTE_FRAMES ? ClassWriter.COMPUTE_FRAMES : 0));
             node.accept(writer);
             return ClassEntry.create(entry.getName(), entry.getTime(), writer.toByteArray());
         }
         return entry;
     }
 
+    /**
+     * Apply mixin patches or class transforms to an already parsed class.
+     *
+     * @param node the class to patch
+     * @return the combined result of all applied patches
+     */
+    public Patch.Result patchClass(ClassNode node) {
+        Patch.Result patchResult = Patch.Result.PASS;
+
+        Worker worker = getWorker(getPartition(node));
+        synchronized (worker) {
+            PatchEnvironment environment = worker.environment();
+            // Some mods generate their mixin configs at runtime, therefore we must scan all classes
+            // regardless of whether they're listed in present config files (see Andromeda)
+            if (isMixinClass(node)) {
+                patchResult = patchResult.or(CLASS_PATCH.apply(node, environment));
+
+                List<Patch> candidates = this.patchIndex.getCandidates(node, worker.refmapHolder());
+                if (VERIFY_PATCH_INDEX) {
+                    candidates = verifyCandidates(node, candidates, worker.refmapHolder());
+                }
+                for (Patch patch : candidates) {
+                    patchResult = patchResult.or(patch.apply(node, environment));
+                }
+                for (Patch patch : this.dynamicPatches) {
+                    patchResult = patchResult.or(patch.apply(node, environment));
+                }
+            }
+            else {
+                for (ClassTransform transform : CLASS_TRANSFORMS) {
+                    patchResult = patchResult.or(transform.apply(node, null, PatchContext.create(node, List.of(), environment)));
+                }
+                if (patchResult != Patch.Result.PASS) {
+                    this.transformedClasses.add(node.name);
+                }
+            }
+        }
+        return patchResult;
+    }
+
+    /**
+     * {@return whether a non-mixin class was changed by class transforms}
+     *
+     * @param name internal class name
+     */
+    public boolean isClassTransformed(String name) {
+        return this.transformedClasses.contains(name);
+    }
+
+    /**
+     * Apply every patch excluded by the patch index to a copy of the mixin, and restore those that make changes.
+     * The dry run uses a read-only refmap and a discarded audit trail, so it has no side effects on the jar.
+     *
+     * @return candidate patches along with wrongly excluded ones, in their original order
+     */
+    private List<Patch> verifyCandidates(ClassNode node, List<Patch> candidates, RefmapHolder refmapHolder) {
+        Set<Patch> included = Collections.newSetFromMap(new IdentityHashMap<>());
+        included.addAll(candidates);
+        RefmapHolder readOnlyRefmap = new RefmapHolder() {
+            @Override
+            public String remap(String cls, String reference) {
+                return refmapHolder.remap(cls, reference);
+            }
+
+            @Override
+            public void copyEntries(String from, String to) {}
+        };
+        PatchEnvironment environment = this.environmentFactory.create(readOnlyRefmap, PatchAuditTrail.create());
+        List<Patch> verified = new ArrayList<>();
+        for (Patch patch : this.patchIndex.getPatches()) {
+            if (!included.contains(patch)) {
+                ClassNode copy = new ClassNode();
+                node.accept(copy);
+                if (patch.apply(copy, environment) == Patch.Result.PASS) {
+                    continue;
+                }
+                LOGGER.error("Mixin patch index excluded patch {} which applies to mixin {}", patch, node.name);
+            }
+            verified.add(patch);
+        }
+        return verified;
+    }
+
+    // Mixins are partitioned by their first target class, other classes by their own name
+    private int getPartition(ClassNode node) {
+        if (this.workers.length() == 1) {
+            return 0;
+        }
+        String key = node.name;
+        if (isMixinClass(node)) {
+            Set<String> targets = MixinPatchIndex.getMixinTargets(node, this.refmapHolder);
+            if (!targets.isEmpty()) {
+                key = Collections.min(targets);
+            }
+        }
+        return Math.floorMod(key.hashCode(), this.workers.length());
+    }
+
+    private Worker getWorker(int partition) {
+        Worker worker = this.workers.get(partition);
+        if (worker == null) {
+            ConnectorRefmapHolder refmapHolder = this.refmapHolder.fork();
+            PatchAuditTrail auditTrail = PatchAuditTrail.create();
+            Worker created = new Worker(this.environmentFactory.create(refmapHolder, auditTrail), refmapHolder, auditTrail);
+            worker = this.workers.compareAndSet(partition, null, created) ? created : this.workers.get(partition);
+        }
+        return worker;
+    }
+
+    private List<Worker> getWorkers() {
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < this.workers.length(); i++) {
+            Worker worker = this.workers.get(i);
+            if (worker != null) {
+                workers.add(worker);
+            }
+        }
+        return workers;
+    }
+
+    /**
+     * Merge mixin classes generated by all workers, in partition order. Only mixins with several targets in
+     * different partitions can cause classes to be generated under the same name by different workers.
+     * Their members are combined, failing if both workers generated a member with the same name but different contents.
+     */
+    private synchronized Map<String, MixinClassGenerator.GeneratedClass> getGeneratedMixinClasses() {
+        if (this.generatedMixinClasses == null) {
+            Map<String, MixinClassGenerator.GeneratedClass> classes = new TreeMap<>();
+            Map<String, PatchEnvironment> environments = new HashMap<>();
+            for (Worker worker : getWorkers()) {
+                worker.environment().classGenerator().getGeneratedMixinClasses().forEach((name, cls) -> {
+                    MixinClassGenerator.GeneratedClass existing = classes.putIfAbsent(name, cls);
+                    if (existing != null) {
+                        mergeMembers(existing.node(), cls.node());
+                    }
+                    else {
+                        environments.put(name, worker.environment());
+                    }
+                });
+            }
+            this.generatedMixinClasses = classes;
+            this.generatedMixinEnvironments = environments;
+        }
+        return this.generatedMixinClasses;
+    }
+
+    private static void mergeMembers(ClassNode target, ClassNode source) {
+        for (String itf : source.interfaces) {
+            if (!target.interfaces.contains(itf)) {
+                target.interfaces.add(itf);
+            }
+        }
+        for (FieldNode field : source.fields) {
+            FieldNode existing = target.fields.stream().filter(f -> f.name.equals(field.name)).findFirst().orElse(null);
+            if (existing == null) {
+                target.fields.add(field);
+            }
+            else if (existing.access != field.access || !existing.desc.equals(field.desc) || !Objects.equals(existing.signature, field.signature) || !Objects.equals(existing.value, field.value)) {
+                throw new IllegalStateException("Conflicting definitions of field " + field.name + " in generated mixin class " + target.name);
+            }
+        }
+        for (MethodNode method : source.methods) {
+            MethodNode existing = target.methods.stream().filter(m -> m.name.equals(method.name) && m.desc.equals(method.desc)).findFirst().orElse(null);
+            if (existing == null) {
+                target.methods.add(method);
+            }
+            else if (!Arrays.equals(writeMethod(existing), writeMethod(method))) {
+                throw new IllegalStateException("Conflicting definitions of method " + method.name + method.desc + " in generated mixin class " + target.name);
+            }
+        }
+    }
+
+    // Serializes a single method in isolation so that two method nodes can be compared by content
+    private static byte[] writeMethod(MethodNode method) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, "Method", null, "java/lang/Object", null);
+        method.accept(writer);
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
     @Override
     public Collection<? extends Entry> getExtras() {
         List<Entry> entries = new ArrayList<>();
@@ -244,12 +469,13 @@ public class MixinPatchTransformer implements Transformer {
                     .transform(new DynamicInheritedInjectionPointPatch())
                     .build()
             ).build();
-        this.environment.classGenerator().getGeneratedMixinClasses().forEach((name, cls) -> {
+        getGeneratedMixinClasses().forEach((name, cls) -> {
+            PatchEnvironment environment = this.generatedMixinEnvironments.get(name);
             for (Patch patch : patches) {
-                patch.apply(cls.node(), this.environment);
+                patch.apply(cls.node(), environment);
             }
 
-            ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+            ClassWriter writer = this.classHierarchy.createWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
             cls.node().accept(writer);
             byte[] bytes = writer.toByteArray();
             entries.add(ClassEntry.create(name + ".class", ConnectorUtil.ZIP_TIME, bytes));
@@ -257,6 +483,16 @@ public class MixinPatchTransformer implements Transformer {
         return entries;
     }
 
+    /**
+     * Creates the patch environment of a worker.
+     */
+    @FunctionalInterface
+    public interface EnvironmentFactory {
+        PatchEnvironment create(RefmapHolder refmapHolder, PatchAuditTrail auditTrail);
+    }
+
+    private record Worker(PatchEnvironment environment, ConnectorRefmapHolder refmapHolder, PatchAuditTrail auditTrail) {}
+
     private static boolean isMixinClass(ClassNode classNode) {
         if (classNode.invisibleAnnotations != null) {
             for (AnnotationNode annotation : classNode.invisibleAnnotations) {
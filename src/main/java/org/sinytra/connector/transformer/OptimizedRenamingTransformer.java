@@ -1,7 +1,13 @@
 package org.sinytra.connector.transformer;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.mojang.logging.LogUtils;
 import net.minecraftforge.fart.api.ClassProvider;
-import net.minecraftforge.fart.internal.ClassProviderImpl;
 import net.minecraftforge.fart.internal.EnhancedClassRemapper;
 import net.minecraftforge.fart.internal.EnhancedRemapper;
 import net.minecraftforge.fart.internal.RenamingTransformer;
@@ -16,11 +22,12 @@ import org.sinytra.adapter.patch.analysis.selector.AnnotationHandle;
 import org.sinytra.adapter.patch.analysis.selector.AnnotationValueHandle;
 import org.sinytra.adapter.patch.util.MethodQualifier;
 import org.sinytra.connector.transformer.jar.IntermediateMapping;
+import org.sinytra.connector.transformer.jar.JarTransformer;
+import org.slf4j.Logger;
 import org.spongepowered.asm.mixin.gen.AccessorInfo;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -30,11 +37,8 @@ import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
 import static org.objectweb.asm.Opcodes.ACC_STATIC;
 
 public final class OptimizedRenamingTransformer extends RenamingTransformer {
-    private static final String CLASS_DESC_PATTERN = "^L[a-zA-Z0-9/$_]+;$";
-    private static final String FQN_CLASS_NAME_PATTERN = "^(?:[a-zA-Z0-9$_]+\\.)*[a-zA-Z0-9$_]+$";
-    private static final String INTERNAL_CLASS_NAME_PATTERN = "^(?:[a-zA-Z0-9$_]+/)*[a-zA-Z0-9$_]+$";
-    private static final Pattern FIELD_QUALIFIER_PATTERN = Pattern.compile("^(?<owner>L[\\\\\\w/$]+;)?(?<name>\\w+)(?::(?<desc>\\[*[ZCBSIFJD]|\\[*L[a-zA-Z0-9/_$]+;))?$");
-    private static final String ACCESSOR_METHOD_PATTERN = "^.*(Method_|Field_|Comp_).*$";
+    // Upper bound for memoized post-processed string values, shared across all jars
+    private static final int MAX_CACHED_VALUES = 1 << 16;
     private static final Pattern REGEX_DESC_PATTERN = Pattern.compile("^.*(net\\\\/minecraft\\\\/class_\\d{4}).*$");
 
     private final boolean remapRefs;
@@ -45,6 +49,19 @@ public final class OptimizedRenamingTransformer extends RenamingTransformer {
         this.remapRefs = remapRefs;
     }
 
+    /**
+     * Remap an already parsed class into a new node, without going through bytecode serialization.
+     *
+     * @param node the class to remap
+     * @return the remapped class
+     */
+    public ClassNode remapClass(ClassNode node) {
+        ClassNode remapped = new ClassNode();
+        node.accept(new EnhancedClassRemapper(remapped, this.remapper, this));
+        postProcess(remapped);
+        return remapped;
+    }
+
     @Override
     protected void postProcess(ClassNode node) {
         super.postProcess(node);
@@ -52,7 +69,7 @@ public final class OptimizedRenamingTransformer extends RenamingTransformer {
         // Remap raw values (usually found in reflection calls) and unmapped mixin annotations
         // This is done in a "post-processing" phase rather than inside the main remapper's mapValue method
         // so that we're able to determine the "remap" mixin annotation value ahead of time, and only remap it when necessary
-        PostProcessRemapper postProcessRemapper = new PostProcessRemapper(((MixinAwareEnhancedRemapper) this.remapper).flatMappings, this.remapper);
+        PostProcessRemapper postProcessRemapper = new PostProcessRemapper(((MixinAwareEnhancedRemapper) this.remapper).flatMappings, this.remapper, ((MixinAwareEnhancedRemapper) this.remapper).valueCache);
         if (node.visibleAnnotations != null) {
             for (AnnotationNode annotation : node.visibleAnnotations) {
                 postProcessRemapper.mapAnnotationValues(annotation.values);
@@ -63,6 +80,13 @@ public final class OptimizedRenamingTransformer extends RenamingTransformer {
                 postProcessRemapper.mapAnnotationValues(annotation.values);
             }
         }
+        Map<String, Integer> overrideCounts = countAmbigousOverridenMethods(node);
+        Map<String, List<MethodNode>> ownMethods = new HashMap<>();
+        if (!overrideCounts.isEmpty()) {
+            for (MethodNode method : node.methods) {
+                ownMethods.computeIfAbsent(method.name + method.desc, k -> new ArrayList<>(1)).add(method);
+            }
+        }
         for (MethodNode method : node.methods) {
             if (method.visibleAnnotations != null) {
                 for (AnnotationNode annotation : method.visibleAnnotations) {
@@ -80,15 +104,16 @@ public final class OptimizedRenamingTransformer extends RenamingTransformer {
                     }
                 }
             }
-            avoidAmbigousMappingRecursion(node, method);
+            avoidAmbigousMappingRecursion(node, method, overrideCounts, ownMethods);
         }
         for (FieldNode field : node.fields) {
             field.value = postProcessRemapper.mapValue(field.value);
         }
     }
 
-    private void avoidAmbigousMappingRecursion(ClassNode classNode, MethodNode method) {
-        int parentMethods = countAmbigousOverridenMethods(classNode, method);
+    private void avoidAmbigousMappingRecursion(ClassNode classNode, MethodNode method, Map<String, Integer> overrideCounts, Map<String, List<MethodNode>> ownMethods) {
+        String key = method.name + method.desc;
+        int parentMethods = overrideCounts.getOrDefault(key, 0);
         if (parentMethods > 1) {
             for (AbstractInsnNode insn : method.instructions) {
                 if (insn instanceof MethodInsnNode minsn && minsn.getOpcode() == Opcodes.INVOKEVIRTUAL && minsn.owner.equals(classNode.name) && minsn.name.equals(method.name) && minsn.desc.equals(method.desc)) {
@@ -102,7 +127,7 @@ public final class OptimizedRenamingTransformer extends RenamingTransformer {
         // Look for ambigous methods in our own class
         if (parentMethods > 0) {
             int i = 1;
-            for (MethodNode m : classNode.methods) {
+            for (MethodNode m : ownMethods.getOrDefault(key, List.of())) {
                 if (m != method && m.name.equals(method.name) && m.desc.equals(method.desc)) {
                     m.name += "$connector_disabled$" + i;
                 }
@@ -110,14 +135,24 @@ public final class OptimizedRenamingTransformer extends RenamingTransformer {
         }
     }
 
-    private int countAmbigousOverridenMethods(ClassNode classNode, MethodNode method) {
-        return classNode.superName != null ? this.remapper.getClass(classNode.name)
-            .map(c -> (int) c.getMethods().stream()
-                .flatMap(Optional::stream)
-                .filter(m -> !m.getName().equals(m.getMapped()) && m.getMapped().equals(method.name) && method.desc.equals(this.remapper.mapMethodDesc(m.getDescriptor())) 
-                    && (m.getAccess() & (ACC_PRIVATE | ACC_STATIC)) == 0)
-                .count())
-            .orElse(0) : 0;
+    /**
+     * Count non-private, non-static methods of a class that were renamed by the mappings, keyed by their mapped name and descriptor.
+     * Computed once per class so that looking up the number of ambigous overrides of a method is constant time.
+     */
+    private Map<String, Integer> countAmbigousOverridenMethods(ClassNode classNode) {
+        if (classNode.superName == null) {
+            return Map.of();
+        }
+        return this.remapper.getClass(classNode.name)
+            .map(c -> {
+                Map<String, Integer> counts = new HashMap<>();
+                c.getMethods().stream()
+                    .flatMap(Optional::stream)
+                    .filter(m -> !m.getName().equals(m.getMapped()) && (m.getAccess() & (ACC_PRIVATE | ACC_STATIC)) == 0)
+                    .forEach(m -> counts.merge(m.getMapped() + this.remapper.mapMethodDesc(m.getDescriptor()), 1, Integer::sum));
+                return counts;
+            })
+            .orElse(Map.of());
     }
 
     private void processMixinAnnotation(AnnotationNode annotation, PostProcessRemapper postProcessRemapper) {
@@ -145,7 +180,7 @@ public final class OptimizedRenamingTransformer extends RenamingTransformer {
         }
     }
 
-    private record PostProcessRemapper(IntermediateMapping flatMappings, Remapper remapper) {
+    private record PostProcessRemapper(IntermediateMapping flatMappings, Remapper remapper, Map<String, Object> valueCache) {
         public void mapAnnotationValues(List values) {
             if (values != null) {
                 for (int i = 1; i < values.size(); i += 2) {
@@ -169,63 +204,216 @@ public final class OptimizedRenamingTransformer extends RenamingTransformer {
 
         public Object mapValue(Object value) {
             if (value instanceof String str) {
-                if (str.matches(CLASS_DESC_PATTERN)) {
+                Object cached = this.valueCache.get(str);
+                if (cached != null) {
+                    return cached;
+                }
+                Object mapped = mapString(str);
+                if (this.valueCache.size() < MAX_CACHED_VALUES) {
+                    this.valueCache.put(str, mapped);
+                }
+                return mapped;
+            }
+            return this.remapper.mapValue(value);
+        }
+
+        private Object mapString(String str) {
+            switch (classifyClassName(str)) {
+                case DESCRIPTOR -> {
                     String mapped = this.flatMappings.map(str.substring(1, str.length() - 1));
                     if (mapped != null) {
                         return 'L' + mapped + ';';
                     }
                 }
-                else if (str.matches(FQN_CLASS_NAME_PATTERN)) {
+                case DOTTED -> {
                     String mapped = this.flatMappings.map(str.replace('.', '/'));
                     if (mapped != null) {
                         return mapped.replace('/', '.');
                     }
                 }
-                else if (str.matches(INTERNAL_CLASS_NAME_PATTERN)) {
+                case INTERNAL -> {
                     String mapped = this.flatMappings.map(str);
                     if (mapped != null) {
                         return mapped;
                     }
                 }
+                case NONE -> {}
+            }
 
-                MethodQualifier qualifier = MethodQualifier.create(str).orElse(null);
-                if (qualifier != null && qualifier.desc() != null) {
-                    String owner = qualifier.owner() != null ? this.remapper.mapDesc(qualifier.owner()) : "";
-                    String name = qualifier.name() != null ? this.flatMappings.mapMethodOrDefault(qualifier.name(), qualifier.desc()) : "";
-                    String desc = this.remapper.mapMethodDesc(qualifier.desc());
-                    return owner + name + desc;
-                }
-                else {
-                    Matcher fieldMatcher = FIELD_QUALIFIER_PATTERN.matcher(str);
-                    if (fieldMatcher.matches()) {
-                        String owner = fieldMatcher.group("owner");
-                        String name = fieldMatcher.group("name");
-                        String desc = fieldMatcher.group("desc");
-
-                        if (owner != null || name != null && (name.startsWith("field_") || name.startsWith("comp_"))) {
-                            String mappedOwner = owner != null ? this.remapper.mapDesc(owner) : "";
-                            String mappedName = name != null ? this.flatMappings.mapField(name, desc != null ? desc : "") : "";
-
-                            return mappedOwner + mappedName + (desc != null ? ":" + this.remapper.mapDesc(desc) : "");
-                        }
+            // Method qualifiers are only relevant when they contain a descriptor
+            MethodQualifier qualifier = str.indexOf('(') != -1 ? MethodQualifier.create(str).orElse(null) : null;
+            if (qualifier != null && qualifier.desc() != null) {
+                String owner = qualifier.owner() != null ? this.remapper.mapDesc(qualifier.owner()) : "";
+                String name = qualifier.name() != null ? this.flatMappings.mapMethodOrDefault(qualifier.name(), qualifier.desc()) : "";
+                String desc = this.remapper.mapMethodDesc(qualifier.desc());
+                return owner + name + desc;
+            }
+            else {
+                FieldQualifier field = FieldQualifier.parse(str);
+                if (field != null) {
+                    String owner = field.owner();
+                    String name = field.name();
+                    String desc = field.desc();
+
+                    if (owner != null || name.startsWith("field_") || name.startsWith("comp_")) {
+                        String mappedOwner = owner != null ? this.remapper.mapDesc(owner) : "";
+                        String mappedName = this.flatMappings.mapField(name, desc != null ? desc : "");
+
+                        return mappedOwner + mappedName + (desc != null ? ":" + this.remapper.mapDesc(desc) : "");
                     }
                 }
+            }
 
-                String mapped = this.flatMappings.map(str);
-                if (mapped != null) {
-                    return mapped;
+            String mapped = this.flatMappings.map(str);
+            return mapped != null ? mapped : this.remapper.mapValue(str);
+        }
+    }
+
+    private enum ClassNameKind {
+        // Lpkg/Name;
+        DESCRIPTOR,
+        // pkg.Name, also matches single identifiers
+        DOTTED,
+        // pkg/Name
+        INTERNAL,
+        NONE
+    }
+
+    private static boolean isClassNameChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '$' || c == '_';
+    }
+
+    private static boolean isWordChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+    }
+
+    /**
+     * Determine whether a string is a class descriptor, a dotted class name or an internal class name in a single pass.
+     */
+    private static ClassNameKind classifyClassName(String str) {
+        int length = str.length();
+        if (length == 0) {
+            return ClassNameKind.NONE;
+        }
+        if (length > 2 && str.charAt(0) == 'L' && str.charAt(length - 1) == ';') {
+            for (int i = 1; i < length - 1; i++) {
+                char c = str.charAt(i);
+                if (c != '/' && !isClassNameChar(c)) {
+                    return ClassNameKind.NONE;
                 }
             }
-            return this.remapper.mapValue(value);
+            return ClassNameKind.DESCRIPTOR;
+        }
+        char separator = 0;
+        boolean segmentStart = true;
+        for (int i = 0; i < length; i++) {
+            char c = str.charAt(i);
+            if (c == '.' || c == '/') {
+                // Separators must be consistent and can't delimit empty segments
+                if (segmentStart || separator != 0 && separator != c) {
+                    return ClassNameKind.NONE;
+                }
+                separator = c;
+                segmentStart = true;
+            }
+            else if (isClassNameChar(c)) {
+                segmentStart = false;
+            }
+            else {
+                return ClassNameKind.NONE;
+            }
+        }
+        if (segmentStart) {
+            return ClassNameKind.NONE;
+        }
+        return separator == '/' ? ClassNameKind.INTERNAL : ClassNameKind.DOTTED;
+    }
+
+    /**
+     * A field reference in the form of {@code [Lowner;]name[:desc]}.
+     */
+    private record FieldQualifier(@Nullable String owner, String name, @Nullable String desc) {
+        @Nullable
+        public static FieldQualifier parse(String str) {
+            int length = str.length();
+            int pos = 0;
+            String owner = null;
+            if (length > 0 && str.charAt(0) == 'L') {
+                int end = str.indexOf(';');
+                if (end > 1 && isOwner(str, 1, end)) {
+                    owner = str.substring(0, end + 1);
+                    pos = end + 1;
+                }
+            }
+            int nameStart = pos;
+            while (pos < length && isWordChar(str.charAt(pos))) {
+                pos++;
+            }
+            if (pos == nameStart) {
+                return null;
+            }
+            String name = str.substring(nameStart, pos);
+            if (pos == length) {
+                return new FieldQualifier(owner, name, null);
+            }
+            if (str.charAt(pos) != ':' || !isFieldDesc(str, pos + 1)) {
+                return null;
+            }
+            return new FieldQualifier(owner, name, str.substring(pos + 1));
+        }
+
+        private static boolean isOwner(String str, int start, int end) {
+            for (int i = start; i < end; i++) {
+                char c = str.charAt(i);
+                if (!isWordChar(c) && c != '\\' && c != '/' && c != '$') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isFieldDesc(String str, int start) {
+            int length = str.length();
+            int pos = start;
+            while (pos < length && str.charAt(pos) == '[') {
+                pos++;
+            }
+            if (pos >= length) {
+                return false;
+            }
+            char c = str.charAt(pos);
+            if (c == 'L') {
+                if (length - pos < 3 || str.charAt(length - 1) != ';') {
+                    return false;
+                }
+                for (int i = pos + 1; i < length - 1; i++) {
+                    char ch = str.charAt(i);
+                    if (ch != '/' && !isClassNameChar(ch)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return pos == length - 1 && "ZCBSIFJD".indexOf(c) != -1;
         }
     }
 
     public static final class IntermediaryClassProvider implements ClassProvider {
+        private static final Logger LOGGER = LogUtils.getLogger();
+        // Maximum number of remapped class infos kept in memory
+        private static final int MAX_CACHED_CLASSES = Integer.getInteger("connector.classInfoCacheSize", 16384);
+
         private final ClassProvider upstream;
         private final IMappingFile forwardMapping;
+        // Remaps member tables of classes as their infos are computed
         private final EnhancedRemapper remapper;
 
-        private final Map<String, Optional<IClassInfo>> classCache = new ConcurrentHashMap<>();
+        // Class infos only hold member tables, with names and descriptors interned across all classes
+        private final LoadingCache<String, Optional<IClassInfo>> classCache = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_CLASSES)
+            .recordStats()
+            .build(CacheLoader.from(this::computeClassInfo));
+        private final Interner<String> interner = Interners.newWeakInterner();
 
         public IntermediaryClassProvider(ClassProvider upstream, IMappingFile forwardMapping, IMappingFile reverseMapping, Consumer<String> log) {
             this.upstream = upstream;
@@ -235,26 +423,40 @@ public final class OptimizedRenamingTransformer extends RenamingTransformer {
 
         @Override
         public Optional<? extends IClassInfo> getClass(String s) {
-            return this.classCache.computeIfAbsent(s, this::computeClassInfo)
+            return this.classCache.getUnchecked(s)
                 .or(() -> this.upstream.getClass(s));
         }
 
+        /**
+         * {@return the class as declared, without mixin targets added to its interfaces}
+         *
+         * @param s intermediary class name
+         */
+        public Optional<? extends IClassInfo> getDeclaredClass(String s) {
+            return getClass(s).map(info -> info instanceof MixinClassInfo mixin ? mixin.wrapped() : info);
+        }
+
         @Override
         public Optional<byte[]> getClassBytes(String cls) {
             return this.upstream.getClassBytes(this.forwardMapping.remapClass(cls));
         }
 
+        public void logStatistics() {
+            CacheStats stats = this.classCache.stats();
+            LOGGER.debug(JarTransformer.TRANSFORM_MARKER, "Class info cache hits: {}, misses: {}, evictions: {}, size: {}/{}",
+                stats.hitCount(), stats.missCount(), stats.evictionCount(), this.classCache.size(), MAX_CACHED_CLASSES);
+        }
+
         private Optional<IClassInfo> computeClassInfo(String cls) {
             return getClassBytes(cls).map(data -> {
                 ClassReader reader = new ClassReader(data);
-                ClassWriter writer = new ClassWriter(0);
-                ClassRemapper remapper = new EnhancedClassRemapper(writer, this.remapper, null);
+                ClassInfoCollector collector = new ClassInfoCollector(this.interner);
+                ClassRemapper remapper = new EnhancedClassRemapper(collector, this.remapper, null);
                 MixinTargetAnalyzer analyzer = new MixinTargetAnalyzer(Opcodes.ASM9, remapper);
-                reader.accept(analyzer, ClassReader.SKIP_CODE);
+                reader.accept(analyzer, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
                 analyzer.targets.remove(cls);
 
-                byte[] remapped = writer.toByteArray();
-                IClassInfo info = new ClassProviderImpl.ClassInfo(remapped);
+                IClassInfo info = collector.build();
                 return !analyzer.targets.isEmpty() ? new MixinClassInfo(info, analyzer.targets) : info;
             });
         }
@@ -265,12 +467,90 @@ public final class OptimizedRenamingTransformer extends RenamingTransformer {
         }
     }
 
+    private static class ClassInfoCollector extends ClassVisitor {
+        private final Interner<String> interner;
+        private final Map<String, CompactFieldInfo> fields = new LinkedHashMap<>();
+        private final Map<String, CompactMethodInfo> methods = new LinkedHashMap<>();
+        private int access;
+        private String name;
+        private String superName;
+        private List<String> interfaces;
+
+        public ClassInfoCollector(Interner<String> interner) {
+            super(Opcodes.ASM9);
+            this.interner = interner;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            this.access = access;
+            this.name = this.interner.intern(name);
+            this.superName = superName != null ? this.interner.intern(superName) : null;
+            this.interfaces = interfaces != null ? Stream.of(interfaces).map(this.interner::intern).toList() : List.of();
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            this.fields.put(name, new CompactFieldInfo(access, this.interner.intern(name), this.interner.intern(descriptor)));
+            return null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            CompactMethodInfo method = new CompactMethodInfo(access, this.interner.intern(name), this.interner.intern(descriptor));
+            this.methods.put(method.name() + method.desc(), method);
+            return null;
+        }
+
+        public IClassInfo build() {
+            return new CompactClassInfo(this.access, this.name, this.superName, this.interfaces, Map.copyOf(this.fields), Map.copyOf(this.methods));
+        }
+    }
+
+    private record CompactClassInfo(int access, String name, @Nullable String superName, List<String> interfaces,
+                                    Map<String, CompactFieldInfo> fields, Map<String, CompactMethodInfo> methods) implements ClassProvider.IClassInfo {
+        //@formatter:off
+        @Override public int getAccess() {return this.access;}
+        @Override public String getName() {return this.name;}
+        @Override public @Nullable String getSuper() {return this.superName;}
+        @Override public Collection<String> getInterfaces() {return this.interfaces;}
+        @Override public Collection<? extends ClassProvider.IFieldInfo> getFields() {return this.fields.values();}
+        @Override public Optional<? extends ClassProvider.IFieldInfo> getField(String name) {return Optional.ofNullable(this.fields.get(name));}
+        @Override public Collection<? extends ClassProvider.IMethodInfo> getMethods() {return this.methods.values();}
+        @Override public Optional<? extends ClassProvider.IMethodInfo> getMethod(String name, String desc) {return Optional.ofNullable(this.methods.get(name + desc));}
+        //@formatter:on
+    }
+
+    private record CompactFieldInfo(int access, String name, String desc) implements ClassProvider.IFieldInfo {
+        //@formatter:off
+        @Override public int getAccess() {return this.access;}
+        @Override public String getName() {return this.name;}
+        @Override public String getDescriptor() {return this.desc;}
+        //@formatter:on
+    }
+
+    private record CompactMethodInfo(int access, String name, String desc) implements ClassProvider.IMethodInfo {
+        //@formatter:off
+        @Override public int getAccess() {return this.access;}
+        @Override public String getName() {return this.name;}
+        @Override public String getDescriptor() {return this.desc;}
+        //@formatter:on
+    }
+
     public static class MixinAwareEnhancedRemapper extends EnhancedRemapper {
         private final IntermediateMapping flatMappings;
-
-        public MixinAwareEnhancedRemapper(ClassProvider classProvider, IMappingFile map, IntermediateMapping flatMappings, Consumer<String> log) {
+        // Post-processed string values, shared by all jars
+        private final Map<String, Object> valueCache;
+
+        /**
+         * Remappers keep resolved class wrappers for every class they visit, so a new one should be created for each jar.
+         *
+         * @param valueCache post-processed string values, may be shared by remappers of different jars
+         */
+        public MixinAwareEnhancedRemapper(ClassProvider classProvider, IMappingFile map, IntermediateMapping flatMappings, Map<String, Object> valueCache, Consumer<String> log) {
             super(classProvider, map, log);
             this.flatMappings = flatMappings;
+            this.valueCache = valueCache;
         }
 
         @Override
@@ -320,7 +600,7 @@ public final class OptimizedRenamingTransformer extends RenamingTransformer {
                             String mapped = fastMappedLambda != null ? fastMappedLambda : mapMethodName(owner, actualName, descriptor);
                             return name.substring(0, interfacePrefix + 1) + mapped;
                         }
-                        if (name.matches(ACCESSOR_METHOD_PATTERN)) {
+                        if (name.contains("Method_") || name.contains("Field_") || name.contains("Comp_")) {
                             AccessorInfo.AccessorName accessorName = AccessorInfo.AccessorName.of(name);
                             if (accessorName != null) {
                                 String mapped = this.flatMappings.mapMethod(accessorName.name, descriptor);
@@ -3,7 +3,6 @@ package org.sinytra.connector.transformer;
 import com.google.gson.Gson;
 import com.mojang.logging.LogUtils;
 import net.minecraftforge.fart.api.Transformer;
-import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
 import java.io.ByteArrayInputStream;
@@ -14,13 +13,9 @@ import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.UncheckedIOException;
 import java.io.Writer;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 public class RefmapRemapper implements Transformer {
@@ -31,53 +26,34 @@ public class RefmapRemapper implements Transformer {
 
     public record RefmapFiles(MappingAwareReferenceMapper.SimpleRefmap merged, Map<String, MappingAwareReferenceMapper.SimpleRefmap> files) {}
 
-    public static RefmapFiles processRefmaps(Path input, Collection<String> refmaps, MappingAwareReferenceMapper remapper, List<Path> libs) throws IOException {
+    /**
+     * Remap refmaps referenced by a jar's mixin configs.
+     *
+     * @param input            the jar file
+     * @param refmaps          refmap names referenced by the jar's mixin configs
+     * @param jarRefmaps       contents of refmaps found inside the jar
+     * @param remapper         the reference mapper
+     * @param libraryResources library resources, used for refmaps not shipped inside the jar
+     * @return remapped refmaps
+     */
+    public static RefmapFiles processRefmaps(Path input, Collection<String> refmaps, Map<String, byte[]> jarRefmaps, MappingAwareReferenceMapper remapper, LibraryResourceIndex libraryResources) throws IOException {
         MappingAwareReferenceMapper.SimpleRefmap results = new MappingAwareReferenceMapper.SimpleRefmap(Map.of(), Map.of());
         Map<String, MappingAwareReferenceMapper.SimpleRefmap> refmapFiles = new HashMap<>();
-        try (FileSystem fs = FileSystems.newFileSystem(input)) {
-            for (String refmap : refmaps) {
-                Path refmapPath = fs.getPath(refmap);
-                if (Files.notExists(refmapPath)) {
-                    refmapPath = findRefmapOnClasspath(refmap, input, libs);
-                }
-                if (refmapPath != null) {
-                    byte[] data = Files.readAllBytes(refmapPath);
-                    MappingAwareReferenceMapper.SimpleRefmap remapped = remapRefmapInPlace(data, remapper);
-                    refmapFiles.put(refmap, remapped);
-                    results = results.merge(remapped);
-                }
-                else {
-                    LOGGER.warn("Refmap remapper could not find refmap file {}", refmap);
-                }
-            }
-        }
-        return new RefmapFiles(results, refmapFiles);
-    }
-
-    @Nullable
-    private static Path findRefmapOnClasspath(String resource, Path exclude, List<Path> libs) {
-        for (Path lib : libs) {
-            if (lib == exclude) {
-                continue;
+        for (String refmap : refmaps) {
+            byte[] data = jarRefmaps.get(refmap);
+            if (data == null) {
+                data = libraryResources.read(refmap, input);
             }
-            Path basePath;
-            if (Files.isDirectory(lib)) {
-                basePath = lib;
-            } else {
-                try {
-                    FileSystem fs = FileSystems.newFileSystem(lib);
-                    basePath = fs.getPath("");
-                } catch (Exception e) {
-                    LOGGER.error("Error opening jar file", e);
-                    return null;
-                }
+            if (data != null) {
+                MappingAwareReferenceMapper.SimpleRefmap remapped = remapRefmapInPlace(data, remapper);
+                refmapFiles.put(refmap, remapped);
+                results = results.merge(remapped);
             }
-            Path path = basePath.resolve(resource);
-            if (Files.exists(path)) {
-                return path;
+            else {
+                LOGGER.warn("Refmap remapper could not find refmap file {}", refmap);
             }
         }
-        return null;
+        return new RefmapFiles(results, refmapFiles);
     }
 
     private final Map<String, MappingAwareReferenceMapper.SimpleRefmap> files;
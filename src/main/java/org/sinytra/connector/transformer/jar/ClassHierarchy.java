@@ -0,0 +1,205 @@
+package org.sinytra.connector.transformer.jar;
+
+import com.mojang.logging.LogUtils;
+import net.minecraftforge.srgutils.IMappingFile;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.sinytra.connector.transformer.OptimizedRenamingTransformer;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves class hierarchy information from the transform classpath instead of the running class loader,
+ * and provides {@link ClassWriter}s that use it to compute frames.
+ * <p>
+ * Written classes use Mojmap names, while Fabric mods on the classpath are compiled against intermediary.
+ * Classes are therefore looked up through a provider with an intermediary view of the whole classpath,
+ * and the resolved hierarchy is mapped back to Mojmap.
+ * <p>
+ * Minecraft classes are resolved from the index of the clean game jar when available, without parsing class files.
+ * NeoForge only adds interfaces to game classes, which doesn't affect frames as the verifier treats interfaces like
+ * {@code Object}. Common super classes are memoized for the lifetime of the transform. Types that can't be resolved
+ * on the transform classpath fall back to ASM's default class loader based resolution.
+ */
+public class ClassHierarchy {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final String OBJECT = "java/lang/Object";
+
+    private final OptimizedRenamingTransformer.IntermediaryClassProvider classProvider;
+    private final IMappingFile mapping;
+    private final IMappingFile reverseMapping;
+    @Nullable
+    private final ClassHierarchyIndex cleanIndex;
+    private final Map<String, Optional<Node>> nodes = new ConcurrentHashMap<>();
+    private final Map<String, String> commonSuperClasses = new ConcurrentHashMap<>();
+    private final AtomicInteger fallbacks = new AtomicInteger();
+
+    /**
+     * @param classProvider  provider of all classes on the transform classpath, in intermediary names
+     * @param mapping        intermediary to Mojmap mapping
+     * @param reverseMapping Mojmap to intermediary mapping
+     * @param cleanIndex     index of the clean game jar, if available
+     */
+    public ClassHierarchy(OptimizedRenamingTransformer.IntermediaryClassProvider classProvider, IMappingFile mapping, IMappingFile reverseMapping, @Nullable ClassHierarchyIndex cleanIndex) {
+        this.classProvider = classProvider;
+        this.mapping = mapping;
+        this.reverseMapping = reverseMapping;
+        this.cleanIndex = cleanIndex;
+    }
+
+    /**
+     * Create a class writer that resolves common super classes using this hierarchy.
+     *
+     * @param flags class writer flags
+     * @return the class writer
+     */
+    public ClassWriter createWriter(int flags) {
+        return new HierarchyClassWriter(flags);
+    }
+
+    public void logStatistics() {
+        LOGGER.debug(JarTransformer.TRANSFORM_MARKER, "Class hierarchy resolved {} types, {} common super classes fell back to class loading", this.nodes.size(), this.fallbacks.get());
+    }
+
+    /**
+     * {@return the common super class of two types, or {@code null} if either can't be resolved}
+     */
+    @Nullable
+    public String getCommonSuperClass(String type1, String type2) {
+        String key = type1 + ';' + type2;
+        String cached = this.commonSuperClasses.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        String result = computeCommonSuperClass(type1, type2);
+        if (result != null) {
+            this.commonSuperClasses.put(key, result);
+        }
+        return result;
+    }
+
+    @Nullable
+    private String computeCommonSuperClass(String type1, String type2) {
+        Node node1 = getNode(type1);
+        Node node2 = getNode(type2);
+        if (node1 == null || node2 == null) {
+            return null;
+        }
+        Boolean assignable = isAssignableFrom(type1, type2);
+        if (assignable == null) {
+            return null;
+        }
+        if (assignable) {
+            return type1;
+        }
+        assignable = isAssignableFrom(type2, type1);
+        if (assignable == null) {
+            return null;
+        }
+        if (assignable) {
+            return type2;
+        }
+        if (node1.isInterface() || node2.isInterface()) {
+            return OBJECT;
+        }
+        String current = type1;
+        do {
+            Node node = getNode(current);
+            if (node == null) {
+                return null;
+            }
+            current = node.superName();
+            if (current == null) {
+                return OBJECT;
+            }
+            assignable = isAssignableFrom(current, type2);
+            if (assignable == null) {
+                return null;
+            }
+        } while (!assignable);
+        return current;
+    }
+
+    // Returns null if part of the hierarchy can't be resolved
+    @Nullable
+    private Boolean isAssignableFrom(String target, String type) {
+        List<String> queue = new ArrayList<>();
+        queue.add(type);
+        for (int i = 0; i < queue.size(); i++) {
+            String current = queue.get(i);
+            if (current.equals(target)) {
+                return true;
+            }
+            Node node = getNode(current);
+            if (node == null) {
+                return null;
+            }
+            if (node.superName() != null) {
+                queue.add(node.superName());
+            }
+            queue.addAll(node.interfaces());
+        }
+        return false;
+    }
+
+    @Nullable
+    private Node getNode(String name) {
+        return this.nodes.computeIfAbsent(name, this::resolveNode).orElse(null);
+    }
+
+    private Optional<Node> resolveNode(String name) {
+        ClassHierarchyIndex.Entry entry = this.cleanIndex != null ? this.cleanIndex.get(name) : null;
+        if (entry != null) {
+            return Optional.of(new Node(entry.superName(), entry.interfaces(), entry.isInterface()));
+        }
+        Optional<Node> node = this.classProvider.getDeclaredClass(this.reverseMapping.remapClass(name))
+            .map(info -> new Node(
+                info.getSuper() != null ? this.mapping.remapClass(info.getSuper()) : null,
+                info.getInterfaces().stream().map(this.mapping::remapClass).toList(),
+                (info.getAccess() & Opcodes.ACC_INTERFACE) != 0
+            ));
+        return node.isPresent() ? node : resolvePlatformNode(name);
+    }
+
+    // JDK classes are not part of the transform classpath, read their headers from the platform
+    private static Optional<Node> resolvePlatformNode(String name) {
+        try (InputStream is = ClassLoader.getSystemResourceAsStream(name + ".class")) {
+            if (is != null) {
+                ClassReader reader = new ClassReader(is);
+                return Optional.of(new Node(reader.getSuperName(), List.of(reader.getInterfaces()), (reader.getAccess() & Opcodes.ACC_INTERFACE) != 0));
+            }
+        } catch (IOException ignored) {
+            // Treat as unresolved
+        }
+        return Optional.empty();
+    }
+
+    private record Node(@Nullable String superName, List<String> interfaces, boolean isInterface) {}
+
+    private class HierarchyClassWriter extends ClassWriter {
+        public HierarchyClassWriter(int flags) {
+            super(flags);
+        }
+
+        @Override
+        protected String getCommonSuperClass(String type1, String type2) {
+            String result = ClassHierarchy.this.getCommonSuperClass(type1, type2);
+            if (result == null) {
+                ClassHierarchy.this.fallbacks.incrementAndGet();
+                LOGGER.trace(JarTransformer.TRANSFORM_MARKER, "Falling back to class loading for common super class of {} and {}", type1, type2);
+                return super.getCommonSuperClass(type1, type2);
+            }
+            return result;
+        }
+    }
+}
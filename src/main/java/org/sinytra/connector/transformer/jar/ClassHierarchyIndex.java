@@ -0,0 +1,261 @@
+package org.sinytra.connector.transformer.jar;
+
+import com.mojang.logging.LogUtils;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Opcodes;
+import org.sinytra.connector.util.ConnectorUtil;
+import org.sinytra.connector.util.FileDigestIndex;
+import org.slf4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Compact, memory-mapped index of class headers of a jar, generated once and stored in the Connector folder.
+ * <p>
+ * Answers existence and hierarchy queries without opening the jar or parsing class files.
+ * Member tables are deliberately not indexed: the adapter and BFU only query classes through {@link org.sinytra.adapter.patch.util.provider.ClassLookup},
+ * which returns full class nodes, so there is no member-level query that an index could serve. Entries are decoded lazily on first access.
+ * <p>
+ * Layout: {@code int magic, int version, utf digest, int stringCount, int classCount, int recordsLength, int[stringCount + 1] stringOffsets,
+ * (int nameIndex, int recordOffset)[classCount], records, utf8 string data}. Each record is
+ * {@code int access, int superIndex, int interfaceCount, int[] interfaces}, with {@code -1} denoting a missing super class.
+ */
+public final class ClassHierarchyIndex {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final int MAGIC = 0x434E4349;
+    private static final int VERSION = 2;
+    private static final String CLASS_EXTENSION = ".class";
+
+    private final ByteBuffer buffer;
+    private final int stringOffsetsStart;
+    private final int recordsStart;
+    private final int stringDataStart;
+    private final String[] strings;
+    // Class name -> absolute record position
+    private final Map<String, Integer> records;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private ClassHierarchyIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Invalid class index header");
+        }
+        // Skip digest
+        buffer.position(buffer.position() + Short.toUnsignedInt(buffer.getShort()));
+        int stringCount = buffer.getInt();
+        int classCount = buffer.getInt();
+        int recordsLength = buffer.getInt();
+        this.stringOffsetsStart = buffer.position();
+        int classTableStart = this.stringOffsetsStart + (stringCount + 1) * Integer.BYTES;
+        this.recordsStart = classTableStart + classCount * 2 * Integer.BYTES;
+        this.stringDataStart = this.recordsStart + recordsLength;
+        this.strings = new String[stringCount];
+        this.records = new HashMap<>(classCount * 2);
+        for (int i = 0; i < classCount; i++) {
+            int pos = classTableStart + i * 2 * Integer.BYTES;
+            this.records.put(getString(buffer.getInt(pos)), this.recordsStart + buffer.getInt(pos + Integer.BYTES));
+        }
+    }
+
+    /**
+     * Load the index for the given jar, generating it first if it doesn't exist or is outdated.
+     *
+     * @param jar     the indexed jar
+     * @param version version string used to name the index file
+     * @return the loaded index, or {@code null} if it could not be created
+     */
+    @Nullable
+    public static ClassHierarchyIndex load(Path jar, String version) {
+        Path path = ConnectorUtil.CONNECTOR_FOLDER.resolve("index").resolve("classes-" + version + ".bin");
+        try {
+            String digest = FileDigestIndex.INSTANCE.getDigest(jar);
+            FileDigestIndex.INSTANCE.save();
+            if (ConnectorUtil.isCacheEnabled() && Files.exists(path)) {
+                try {
+                    ClassHierarchyIndex index = map(path);
+                    if (digest.equals(index.readDigest())) {
+                        return index;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.warn(JarTransformer.TRANSFORM_MARKER, "Error reading class index {}, regenerating", path, e);
+                }
+            }
+            LOGGER.debug(JarTransformer.TRANSFORM_MARKER, "Generating class index for {}", jar);
+            byte[] data = generate(jar, digest);
+            if (ConnectorUtil.isCacheEnabled()) {
+                Files.createDirectories(path.getParent());
+                Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+                Files.write(temp, data);
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new ClassHierarchyIndex(ByteBuffer.wrap(data));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Error creating class index for {}", jar, e);
+            return null;
+        }
+    }
+
+    private static ClassHierarchyIndex map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ClassHierarchyIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private String readDigest() {
+        int length = Short.toUnsignedInt(this.buffer.getShort(2 * Integer.BYTES));
+        byte[] bytes = new byte[length];
+        this.buffer.get(2 * Integer.BYTES + Short.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public boolean contains(String name) {
+        return this.records.containsKey(name);
+    }
+
+    @Nullable
+    public Entry get(String name) {
+        Entry existing = this.entries.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        Integer position = this.records.get(name);
+        if (position == null) {
+            return null;
+        }
+        Entry entry = readEntry(name, position);
+        this.entries.put(name, entry);
+        return entry;
+    }
+
+    private Entry readEntry(String name, int pos) {
+        int access = this.buffer.getInt(pos);
+        int superIndex = this.buffer.getInt(pos + 4);
+        pos += 8;
+        int interfaceCount = this.buffer.getInt(pos);
+        pos += 4;
+        List<String> interfaces = new ArrayList<>(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++, pos += 4) {
+            interfaces.add(getString(this.buffer.getInt(pos)));
+        }
+        return new Entry(name, access, superIndex != -1 ? getString(superIndex) : null, List.copyOf(interfaces));
+    }
+
+    private String getString(int index) {
+        String str = this.strings[index];
+        if (str == null) {
+            int start = this.buffer.getInt(this.stringOffsetsStart + index * Integer.BYTES);
+            int end = this.buffer.getInt(this.stringOffsetsStart + (index + 1) * Integer.BYTES);
+            byte[] bytes = new byte[end - start];
+            this.buffer.get(this.stringDataStart + start, bytes);
+            str = this.strings[index] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return str;
+    }
+
+    private static byte[] generate(Path jar, String digest) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        List<int[]> classTable = new ArrayList<>();
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream records = new DataOutputStream(recordBytes);
+
+        try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry zipEntry = zipEntries.nextElement();
+                if (zipEntry.isDirectory() || !zipEntry.getName().endsWith(CLASS_EXTENSION) || zipEntry.getName().startsWith("META-INF/")) {
+                    continue;
+                }
+                Collector collector = new Collector();
+                try (InputStream is = zipFile.getInputStream(zipEntry)) {
+                    new ClassReader(is).accept(collector, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+                }
+                classTable.add(new int[]{ index(strings, collector.name), records.size() });
+                records.writeInt(collector.access);
+                records.writeInt(collector.superName != null ? index(strings, collector.superName) : -1);
+                records.writeInt(collector.interfaces.length);
+                for (String itf : collector.interfaces) {
+                    records.writeInt(index(strings, itf));
+                }
+            }
+        }
+        records.flush();
+
+        ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+        List<Integer> stringOffsets = new ArrayList<>(strings.size() + 1);
+        for (String str : strings.keySet()) {
+            stringOffsets.add(stringBytes.size());
+            stringBytes.writeBytes(str.getBytes(StandardCharsets.UTF_8));
+        }
+        stringOffsets.add(stringBytes.size());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (DataOutputStream os = new DataOutputStream(output)) {
+            os.writeInt(MAGIC);
+            os.writeInt(VERSION);
+            os.writeUTF(digest);
+            os.writeInt(strings.size());
+            os.writeInt(classTable.size());
+            os.writeInt(recordBytes.size());
+            for (int offset : stringOffsets) {
+                os.writeInt(offset);
+            }
+            for (int[] entry : classTable) {
+                os.writeInt(entry[0]);
+                os.writeInt(entry[1]);
+            }
+            recordBytes.writeTo(os);
+            stringBytes.writeTo(os);
+        }
+        return output.toByteArray();
+    }
+
+    private static int index(Map<String, Integer> strings, String str) {
+        return strings.computeIfAbsent(str, s -> strings.size());
+    }
+
+    public record Entry(String name, int access, @Nullable String superName, List<String> interfaces) {
+        public boolean isInterface() {
+            return (this.access & Opcodes.ACC_INTERFACE) != 0;
+        }
+    }
+
+    private static class Collector extends ClassVisitor {
+        private int access;
+        private String name;
+        private String superName;
+        private String[] interfaces;
+
+        public Collector() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            this.access = access;
+            this.name = name;
+            this.superName = superName;
+            this.interfaces = interfaces != null ? interfaces : new String[0];
+        }
+    }
+}
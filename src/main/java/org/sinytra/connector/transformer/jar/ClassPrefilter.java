@@ -0,0 +1,163 @@
+package org.sinytra.connector.transformer.jar;
+
+import com.google.common.base.Suppliers;
+import com.mojang.logging.LogUtils;
+import net.minecraftforge.fart.api.Transformer;
+import org.slf4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Scans the constant pool of each class to determine which transformers could possibly affect it.
+ * Classes that no transformer is interested in are passed through byte-for-byte, without being parsed into a tree.
+ */
+public class ClassPrefilter implements Transformer {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private final Transformer delegate;
+    private final Supplier<Set<String>> redirectedOwners;
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger passed = new AtomicInteger();
+
+    /**
+     * @param delegate         transformer to run on classes of interest
+     * @param redirectedOwners owners of accessor methods that are redirected, computed once before the first class is processed
+     */
+    public ClassPrefilter(Transformer delegate, Supplier<Set<String>> redirectedOwners) {
+        this.delegate = delegate;
+        this.redirectedOwners = Suppliers.memoize(redirectedOwners::get);
+    }
+
+    @Override
+    public ClassEntry process(ClassEntry entry) {
+        this.total.incrementAndGet();
+        if (classify(entry.getData(), this.redirectedOwners.get()).isEmpty()) {
+            this.passed.incrementAndGet();
+            return entry;
+        }
+        return this.delegate.process(entry);
+    }
+
+    @Override
+    public ResourceEntry process(ResourceEntry entry) {
+        return this.delegate.process(entry);
+    }
+
+    @Override
+    public ManifestEntry process(ManifestEntry entry) {
+        return this.delegate.process(entry);
+    }
+
+    @Override
+    public Collection<? extends Entry> getExtras() {
+        int total = this.total.get();
+        int passed = this.passed.get();
+        LOGGER.debug(JarTransformer.TRANSFORM_MARKER, "Passed through {} out of {} classes untouched ({}%)", passed, total, total > 0 ? passed * 100 / total : 0);
+        return this.delegate.getExtras();
+    }
+
+    /**
+     * Determine which kinds of transformations may apply to a class, based on strings found in its constant pool.
+     *
+     * @param data             class file bytes
+     * @param redirectedOwners owners of redirected accessor methods
+     * @return a set of matched kinds, empty if the class can be passed through unmodified
+     */
+    public static Set<Kind> classify(byte[] data, Set<String> redirectedOwners) {
+        Set<Kind> kinds = EnumSet.noneOf(Kind.class);
+        try {
+            int count = readUnsignedShort(data, 8);
+            int offset = 10;
+            for (int i = 1; i < count; i++) {
+                int tag = data[offset];
+                switch (tag) {
+                    // Utf8
+                    case 1 -> {
+                        int length = readUnsignedShort(data, offset + 1);
+                        int start = offset + 3;
+                        for (Kind kind : Kind.VALUES) {
+                            if (!kinds.contains(kind) && kind.matches(data, start, length)) {
+                                kinds.add(kind);
+                            }
+                        }
+                        if (!redirectedOwners.isEmpty() && !kinds.contains(Kind.ACCESSOR_REDIRECT) && redirectedOwners.contains(new String(data, start, length, StandardCharsets.UTF_8))) {
+                            kinds.add(Kind.ACCESSOR_REDIRECT);
+                        }
+                        offset = start + length;
+                    }
+                    // Integer, Float, Fieldref, Methodref, InterfaceMethodref, NameAndType, Dynamic, InvokeDynamic
+                    case 3, 4, 9, 10, 11, 12, 17, 18 -> offset += 5;
+                    // Long, Double take up two slots
+                    case 5, 6 -> {
+                        offset += 9;
+                        i++;
+                    }
+                    // Class, String, MethodType, Module, Package
+                    case 7, 8, 16, 19, 20 -> offset += 3;
+                    // MethodHandle
+                    case 15 -> offset += 4;
+                    default -> {
+                        return EnumSet.allOf(Kind.class);
+                    }
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // Malformed class, let the transformers deal with it
+            return EnumSet.allOf(Kind.class);
+        }
+        return kinds;
+    }
+
+    private static int readUnsignedShort(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+    }
+
+    public enum Kind {
+        // Intermediary names, including mixin accessor and interface-prefixed names
+        REMAP("class_", "method_", "field_", "comp_", "Method_", "Field_", "Comp_"),
+        MIXIN("org/spongepowered/asm/mixin/"),
+        REFLECTION("Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;"),
+        RESOURCE_LOOKUP("getResourceAsStream", "defaultResource"),
+        ENVIRONMENT("Lnet/fabricmc/api/Environment"),
+        ACCESSOR_REDIRECT;
+
+        private static final Kind[] VALUES = values();
+
+        private final byte[][] needles;
+
+        Kind(String... needles) {
+            this.needles = new byte[needles.length][];
+            for (int i = 0; i < needles.length; i++) {
+                this.needles[i] = needles[i].getBytes(StandardCharsets.UTF_8);
+            }
+        }
+
+        private boolean matches(byte[] data, int start, int length) {
+            for (byte[] needle : this.needles) {
+                if (contains(data, start, length, needle)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean contains(byte[] data, int start, int length, byte[] needle) {
+            int end = start + length - needle.length;
+            outer:
+            for (int i = start; i <= end; i++) {
+                for (int j = 0; j < needle.length; j++) {
+                    if (data[i + j] != needle[j]) {
+                        continue outer;
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package org.sinytra.connector.transformer.jar;
+
+import com.google.common.base.Suppliers;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.mojang.logging.LogUtils;
+import net.minecraftforge.fart.api.Transformer;
+import net.minecraftforge.srgutils.IMappingFile;
+import net.neoforged.fml.loading.FMLEnvironment;
+import net.neoforged.fml.loading.FMLLoader;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.sinytra.adapter.patch.api.MixinConstants;
+import org.sinytra.connector.locator.EmbeddedDependencies;
+import org.sinytra.connector.transformer.LibraryResourceIndex;
+import org.sinytra.connector.transformer.OptimizedRenamingTransformer;
+import org.sinytra.connector.util.ConnectorUtil;
+import org.sinytra.connector.util.FileDigestIndex;
+import org.slf4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed second level cache storing transformed bytes of individual classes.
+ * <p>
+ * Entries are keyed by the hash of the input class bytes, the mapping, adapter data and transformer chain
+ * versions, a per-jar context string and the dependencies of the class. Remapping resolves inherited members
+ * through the supertypes of the class and of every class it references, so the key includes the digest of each
+ * jar providing one of these types. Types provided by the jar being transformed or by a directory contribute the
+ * digest of their own bytes instead, so that updating a jar doesn't invalidate its unrelated classes. Identical
+ * classes shared across jars (such as shaded libraries) are only transformed once, and updated or re-transformed
+ * jars reuse their unchanged classes.
+ * <p>
+ * Mixin classes are never cached, as patching them has side effects on jar-wide state like refmaps and
+ * generated mixin classes. Neither are classes changed by BFU class transforms, as they may reference
+ * adapter classes generated for the current run.
+ * <p>
+ * Entries are pruned in least recently used order once the cache grows over its size limit.
+ */
+public class ClassTransformCache {
+    // Increment whenever the transformer chain output changes
+    private static final int CHAIN_VERSION = 3;
+    private static final Path CACHE_DIR = ConnectorUtil.CONNECTOR_FOLDER.resolve("classes");
+    // Maximum total size of cached classes, in megabytes
+    private static final long MAX_SIZE = Long.getLong("connector.classCacheMaxSize", 1024) * 1024 * 1024;
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private static final int CONSTANT_CLASS = 7;
+
+    private final boolean enabled;
+    private final OptimizedRenamingTransformer.IntermediaryClassProvider classProvider;
+    private final IMappingFile mappingFile;
+    private final LibraryResourceIndex classSources;
+    private final Supplier<String> version;
+    // Library path -> file digest
+    private final Map<Path, String> libraryDigests = new ConcurrentHashMap<>();
+
+    /**
+     * @param classProvider resolves the supertypes of dependencies, by intermediary name
+     * @param mappingFile   intermediary to runtime mappings of the game
+     * @param classSources  locates the library providing each class, by runtime name
+     */
+    public ClassTransformCache(OptimizedRenamingTransformer.IntermediaryClassProvider classProvider, IMappingFile mappingFile, LibraryResourceIndex classSources) {
+        this.enabled = ConnectorUtil.isCacheEnabled();
+        this.classProvider = classProvider;
+        this.mappingFile = mappingFile;
+        this.classSources = classSources;
+        this.version = Suppliers.memoize(() -> String.join(",",
+            String.valueOf(CHAIN_VERSION),
+            FMLLoader.versionInfo().mcAndNeoFormVersion(),
+            FMLEnvironment.dist.name(),
+            EmbeddedDependencies.getAdapterDataVersion(),
+            computeMappingDigest(mappingFile)
+        ));
+    }
+
+    private static String computeMappingDigest(IMappingFile mappingFile) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (IMappingFile.IClass cls : mappingFile.getClasses()) {
+            hasher.putString(cls.getOriginal(), StandardCharsets.UTF_8).putByte((byte) 0)
+                .putString(cls.getMapped(), StandardCharsets.UTF_8).putByte((byte) 0);
+            for (IMappingFile.IField field : cls.getFields()) {
+                hasher.putString(field.getOriginal(), StandardCharsets.UTF_8).putByte((byte) 0)
+                    .putString(field.getMapped(), StandardCharsets.UTF_8).putByte((byte) 0);
+            }
+            for (IMappingFile.IMethod method : cls.getMethods()) {
+                hasher.putString(method.getOriginal(), StandardCharsets.UTF_8).putByte((byte) 0)
+                    .putString(method.getDescriptor(), StandardCharsets.UTF_8).putByte((byte) 0)
+                    .putString(method.getMapped(), StandardCharsets.UTF_8).putByte((byte) 0);
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Wraps transformers processing class entries with a cache lookup.
+     *
+     * @param input        the jar being transformed
+     * @param context      per-jar state that affects transformation results, computed once before the first class is processed
+     * @param transformers transformers to run sequentially on cache misses
+     * @param excluded     tests whether a transformed class, by internal name, must not be cached
+     * @return a single transformer delegating to the given ones
+     */
+    public Transformer wrap(Path input, Supplier<String> context, List<Transformer> transformers, Predicate<String> excluded) {
+        return new CachingTransformer(input, Suppliers.memoize(() -> this.version.get() + ";" + context.get()), transformers, excluded);
+    }
+
+    /**
+     * Persist library digests and delete least recently used entries until the cache fits within its size limit.
+     */
+    public void prune() {
+        if (!this.libraryDigests.isEmpty()) {
+            FileDigestIndex.INSTANCE.save();
+        }
+        if (!Files.isDirectory(CACHE_DIR)) {
+            return;
+        }
+        record CachedFile(Path path, long size, long accessed) {}
+        List<CachedFile> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.walk(CACHE_DIR)) {
+            stream.forEach(path -> {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    if (attributes.isRegularFile()) {
+                        files.add(new CachedFile(path, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                    }
+                } catch (IOException ignored) {
+                    // Removed concurrently
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.warn(JarTransformer.TRANSFORM_MARKER, "Error listing class cache", e);
+            return;
+        }
+        long total = files.stream().mapToLong(CachedFile::size).sum();
+        if (total <= MAX_SIZE) {
+            return;
+        }
+        files.sort(Comparator.comparingLong(CachedFile::accessed));
+        long initial = total;
+        int removed = 0;
+        for (CachedFile file : files) {
+            if (total <= MAX_SIZE) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(file.path());
+                total -= file.size();
+                removed++;
+            } catch (IOException e) {
+                LOGGER.warn(JarTransformer.TRANSFORM_MARKER, "Error removing cached class {}", file.path(), e);
+            }
+        }
+        LOGGER.debug(JarTransformer.TRANSFORM_MARKER, "Pruned {} cached classes, reducing class cache size from {} to {} MiB", removed, initial >> 20, total >> 20);
+    }
+
+    private HashCode getKey(String context, byte[] data, Collection<String> dependencies) {
+        Hasher hasher = Hashing.sha256().newHasher()
+            .putString(context, StandardCharsets.UTF_8)
+            .putBytes(data);
+        dependencies.forEach(dependency -> hasher.putByte((byte) 0).putString(dependency, StandardCharsets.UTF_8));
+        return hasher.hash();
+    }
+
+    private String getLibraryDigest(Path path) {
+        return this.libraryDigests.computeIfAbsent(path, p -> {
+            try {
+                return FileDigestIndex.INSTANCE.getDigest(p);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static Set<String> getReferencedClasses(byte[] data) {
+        ClassReader reader = new ClassReader(data);
+        char[] buffer = new char[reader.getMaxStringLength()];
+        Set<String> classes = new HashSet<>();
+        for (int i = 1; i < reader.getItemCount(); i++) {
+            int offset = reader.getItem(i);
+            // The second slot of long and double constants has no offset
+            if (offset > 0 && reader.readByte(offset - 1) == CONSTANT_CLASS) {
+                String name = reader.readUTF8(offset, buffer);
+                if (name.startsWith("[")) {
+                    Type type = Type.getType(name).getElementType();
+                    if (type.getSort() != Type.OBJECT) {
+                        continue;
+                    }
+                    name = type.getInternalName();
+                }
+                classes.add(name);
+            }
+        }
+        return classes;
+    }
+
+    private Path getPath(HashCode key) {
+        String hash = key.toString();
+        return CACHE_DIR.resolve(hash.substring(0, 2)).resolve(hash.substring(2));
+    }
+
+    @Nullable
+    private Transformer.ClassEntry read(HashCode key, long time) {
+        Path path = getPath(key);
+        if (Files.exists(path)) {
+            try (DataInputStream is = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)))) {
+                String name = is.readUTF();
+                byte[] data = is.readAllBytes();
+                // Track usage for pruning
+                Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+                return Transformer.ClassEntry.create(name, time, data);
+            } catch (IOException e) {
+                LOGGER.warn(JarTransformer.TRANSFORM_MARKER, "Error reading cached class {}", path, e);
+            }
+        }
+        return null;
+    }
+
+    private void write(HashCode key, Transformer.ClassEntry entry) {
+        Path path = getPath(key);
+        try {
+            Files.createDirectories(path.getParent());
+            ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+            try (DataOutputStream os = new DataOutputStream(byteStream)) {
+                os.writeUTF(entry.getName());
+                os.write(entry.getData());
+            }
+            // Write to a temporary file first, as the same class may be stored by multiple jars at once
+            Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            Files.write(temp, byteStream.toByteArray());
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn(JarTransformer.TRANSFORM_MARKER, "Error caching transformed class {}", entry.getName(), e);
+        }
+    }
+
+    private static boolean isMixinClass(byte[] data) {
+        MixinAnnotationDetector detector = new MixinAnnotationDetector();
+        new ClassReader(data).accept(detector, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return detector.mixin;
+    }
+
+    private class CachingTransformer implements Transformer {
+        private final Path input;
+        private final Supplier<String> context;
+        private final List<Transformer> transformers;
+        private final Predicate<String> excluded;
+        // Intermediary class name -> sorted digests of the sources of the class and its supertypes
+        private final Map<String, Set<String>> dependencies = new ConcurrentHashMap<>();
+        private final AtomicInteger hits = new AtomicInteger();
+        private final AtomicInteger misses = new AtomicInteger();
+
+        public CachingTransformer(Path input, Supplier<String> context, List<Transformer> transformers, Predicate<String> excluded) {
+            this.input = input;
+            this.context = context;
+            this.transformers = transformers;
+            this.excluded = excluded;
+        }
+
+        @Override
+        public ClassEntry process(ClassEntry entry) {
+            byte[] data = entry.getData();
+            if (!ClassTransformCache.this.enabled || isMixinClass(data)) {
+                return transform(entry);
+            }
+            HashCode key;
+            try {
+                Set<String> dependencies = new TreeSet<>();
+                for (String name : getReferencedClasses(data)) {
+                    dependencies.addAll(getDependencies(name));
+                }
+                key = getKey(this.context.get(), data, dependencies);
+            } catch (UncheckedIOException e) {
+                LOGGER.warn(JarTransformer.TRANSFORM_MARKER, "Error resolving dependencies of class {}, skipping class cache", entry.getName(), e);
+                return transform(entry);
+            }
+            ClassEntry cached = read(key, entry.getTime());
+            if (cached != null) {
+                this.hits.incrementAndGet();
+                return cached;
+            }
+            this.misses.incrementAndGet();
+            ClassEntry transformed = transform(entry);
+            if (transformed != null && !this.excluded.test(getClassName(transformed))) {
+                write(key, transformed);
+            }
+            return transformed;
+        }
+
+        private Set<String> getDependencies(String name) {
+            Set<String> cached = this.dependencies.get(name);
+            if (cached != null) {
+                return cached;
+            }
+            Set<String> result = new TreeSet<>();
+            String source = getSourceDigest(name);
+            if (source != null) {
+                result.add(source);
+            }
+            ClassTransformCache.this.classProvider.getDeclaredClass(name).ifPresent(info -> {
+                if (info.getSuper() != null) {
+                    result.addAll(getDependencies(info.getSuper()));
+                }
+                for (String itf : info.getInterfaces()) {
+                    result.addAll(getDependencies(itf));
+                }
+            });
+            // Not computed atomically, as the resolution is recursive
+            this.dependencies.put(name, result);
+            return result;
+        }
+
+        @Nullable
+        private String getSourceDigest(String name) {
+            Path source = ClassTransformCache.this.classSources.getClassSource(ClassTransformCache.this.mappingFile.remapClass(name));
+            if (source == null) {
+                // Platform classes
+                return null;
+            }
+            if (source.equals(this.input) || !Files.isRegularFile(source)) {
+                return ClassTransformCache.this.classProvider.getClassBytes(name)
+                    .map(bytes -> name + "@" + Hashing.sha256().hashBytes(bytes))
+                    .orElse(null);
+            }
+            return getLibraryDigest(source);
+        }
+
+        private static String getClassName(ClassEntry entry) {
+            String name = entry.getName();
+            return name.substring(0, name.length() - ".class".length());
+        }
+
+        private ClassEntry transform(ClassEntry entry) {
+            for (Transformer transformer : this.transformers) {
+                entry = transformer.process(entry);
+                if (entry == null) {
+                    break;
+                }
+            }
+            return entry;
+        }
+
+        @Override
+        public ResourceEntry process(ResourceEntry entry) {
+            for (Transformer transformer : this.transformers) {
+                entry = transformer.process(entry);
+                if (entry == null) {
+                    break;
+                }
+            }
+            return entry;
+        }
+
+        @Override
+        public ManifestEntry process(ManifestEntry entry) {
+            for (Transformer transformer : this.transformers) {
+                entry = transformer.process(entry);
+                if (entry == null) {
+                    break;
+                }
+            }
+            return entry;
+        }
+
+        @Override
+        public Collection<? extends Entry> getExtras() {
+            LOGGER.debug(JarTransformer.TRANSFORM_MARKER, "Class cache hits: {}, misses: {}", this.hits.get(), this.misses.get());
+            List<Entry> extras = new ArrayList<>();
+            for (Transformer transformer : this.transformers) {
+                extras.addAll(transformer.getExtras());
+            }
+            return extras;
+        }
+    }
+
+    private static class MixinAnnotationDetector extends ClassVisitor {
+        private boolean mixin;
+
+        public MixinAnnotationDetector() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            if (descriptor.equals(MixinConstants.MIXIN)) {
+                this.mixin = true;
+            }
+            return null;
+        }
+    }
+}
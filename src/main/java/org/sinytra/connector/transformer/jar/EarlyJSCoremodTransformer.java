@@ -1,5 +1,8 @@
 package org.sinytra.connector.transformer.jar;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.mojang.logging.LogUtils;
 import cpw.mods.modlauncher.ClassTransformer;
 import cpw.mods.modlauncher.LaunchPluginHandler;
@@ -38,6 +41,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static cpw.mods.modlauncher.api.LambdaExceptionUtils.uncheck;
 import static net.neoforged.fml.loading.LogMarkers.CORE;
@@ -48,9 +54,21 @@ public class EarlyJSCoremodTransformer implements ClassProvider {
     private static final MethodHandle LOAD_COREMOD_SCRIPTS = uncheck(() -> MethodHandles.privateLookupIn(COREMOD_SCRIPT_LOADER, MethodHandles.lookup()).findStatic(COREMOD_SCRIPT_LOADER, "loadCoreModScripts", MethodType.methodType(List.class, List.class)));
     private static final MethodHandle TRANSFORM = uncheck(() -> MethodHandles.privateLookupIn(ClassTransformer.class, MethodHandles.lookup()).findVirtual(ClassTransformer.class, "transform", MethodType.methodType(byte[].class, byte[].class, String.class, String.class)));
     private static final Logger LOGGER = LogUtils.getLogger();
+    // Used to skip classes that aren't targeted by any coremod, null if unavailable
+    private static final MethodHandle NEEDS_TRANSFORMING = findNeedsTransforming();
+    // Maximum total size of cached transformed classes
+    private static final long MAX_CACHED_BYTES = 32L * 1024 * 1024;
 
     private final ClassProvider provider;
     private final ClassTransformer transformer;
+    private final TransformStore transformStore;
+    private final Cache<String, byte[]> transformedCache = CacheBuilder.newBuilder()
+        .maximumWeight(MAX_CACHED_BYTES)
+        .<String, byte[]>weigher((name, bytes) -> bytes.length)
+        .recordStats()
+        .build();
+    private final AtomicLong transformNanos = new AtomicLong();
+    private final AtomicInteger transformedClasses = new AtomicInteger();
 
     public static EarlyJSCoremodTransformer create(ClassProvider classProvider, Collection<IModFile> loadedMods) {
         try {
@@ -72,15 +90,16 @@ public class EarlyJSCoremodTransformer implements ClassProvider {
             Constructor<ClassTransformer> xformCst = ClassTransformer.class.getDeclaredConstructor(TransformStore.class, LaunchPluginHandler.class, TransformingClassLoader.class);
             xformCst.setAccessible(true);
             ClassTransformer classTransformer = xformCst.newInstance(transformStore, plugins, null);
-            return new EarlyJSCoremodTransformer(classProvider, classTransformer);
+            return new EarlyJSCoremodTransformer(classProvider, classTransformer, transformStore);
         } catch (Throwable t) {
             throw new RuntimeException(t);
         }
     }
 
-    public EarlyJSCoremodTransformer(ClassProvider provider, ClassTransformer transformer) {
+    public EarlyJSCoremodTransformer(ClassProvider provider, ClassTransformer transformer, TransformStore transformStore) {
         this.provider = provider;
         this.transformer = transformer;
+        this.transformStore = transformStore;
     }
 
     @Override
@@ -90,17 +109,56 @@ public class EarlyJSCoremodTransformer implements ClassProvider {
 
     @Override
     public Optional<byte[]> getClassBytes(String s) {
+        if (!isTargeted(s)) {
+            return this.provider.getClassBytes(s);
+        }
+        byte[] cached = this.transformedCache.getIfPresent(s);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
         return this.provider.getClassBytes(s)
             .map(bytes -> {
+                long start = System.nanoTime();
                 try {
-                    return (byte[]) TRANSFORM.invoke(this.transformer, bytes, s, ITransformerActivity.COMPUTING_FRAMES_REASON);
+                    byte[] transformed = (byte[]) TRANSFORM.invoke(this.transformer, bytes, s, ITransformerActivity.COMPUTING_FRAMES_REASON);
+                    this.transformedCache.put(s, transformed);
+                    return transformed;
                 } catch (Throwable t) {
                     LOGGER.error("Error transforming class {}", s, t);
                     return bytes;
+                } finally {
+                    this.transformNanos.addAndGet(System.nanoTime() - start);
+                    this.transformedClasses.incrementAndGet();
                 }
             });
     }
 
+    public void logStatistics() {
+        CacheStats stats = this.transformedCache.stats();
+        LOGGER.debug(JarTransformer.TRANSFORM_MARKER, "Spent {} ms transforming {} classes with coremods, cache hits: {}, evictions: {}",
+            TimeUnit.NANOSECONDS.toMillis(this.transformNanos.get()), this.transformedClasses.get(), stats.hitCount(), stats.evictionCount());
+    }
+
+    private boolean isTargeted(String name) {
+        if (NEEDS_TRANSFORMING == null) {
+            return true;
+        }
+        try {
+            return (boolean) NEEDS_TRANSFORMING.invoke(this.transformStore, name.replace('.', '/'));
+        } catch (Throwable t) {
+            return true;
+        }
+    }
+
+    private static MethodHandle findNeedsTransforming() {
+        try {
+            return MethodHandles.privateLookupIn(TransformStore.class, MethodHandles.lookup()).findVirtual(TransformStore.class, "needsTransforming", MethodType.methodType(boolean.class, String.class));
+        } catch (ReflectiveOperationException e) {
+            LOGGER.warn("Unable to determine coremod targets, all classes will be transformed", e);
+            return null;
+        }
+    }
+
     @Override
     public void close() throws IOException {
         this.provider.close();
@@ -0,0 +1,34 @@
+package org.sinytra.connector.transformer.jar;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.objectweb.asm.tree.ClassNode;
+import org.sinytra.adapter.patch.util.provider.ClassLookup;
+
+import java.util.Optional;
+
+/**
+ * Class lookup backed by a {@link ClassHierarchyIndex}. Lookups of classes that don't exist in the indexed jar
+ * are answered from the index alone, while hierarchy queries are served by {@link ClassHierarchy} straight from the index.
+ * Every class that exists is still read as a full class node from the delegate lookup, as the {@link ClassLookup}
+ * contract has no way to request headers only. Nodes are kept softly reachable so that patches and BFU share a single
+ * parsed copy of each class.
+ */
+public class IndexedClassLookup implements ClassLookup {
+    private final ClassHierarchyIndex index;
+    private final ClassLookup delegate;
+    private final LoadingCache<String, Optional<ClassNode>> classes = CacheBuilder.newBuilder()
+        .softValues()
+        .build(CacheLoader.from(name -> this.delegate.getClass(name)));
+
+    public IndexedClassLookup(ClassHierarchyIndex index, ClassLookup delegate) {
+        this.index = index;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Optional<ClassNode> getClass(String name) {
+        return this.index.contains(name) ? this.classes.getUnchecked(name) : Optional.empty();
+    }
+}
@@ -1,19 +1,40 @@
 package org.sinytra.connector.transformer.jar;
 
+import com.google.common.hash.Hashing;
 import com.mojang.logging.LogUtils;
 import net.fabricmc.loader.impl.FabricLoaderImpl;
 import net.fabricmc.loader.impl.MappingResolverImpl;
 import net.minecraftforge.srgutils.IMappingFile;
+import net.neoforged.fml.loading.FMLLoader;
 import org.jetbrains.annotations.Nullable;
+import org.sinytra.connector.locator.EmbeddedDependencies;
+import org.sinytra.connector.util.ConnectorUtil;
 import org.slf4j.Logger;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Stream;
 
+/**
+ * Flat name-based mappings used for quickly remapping member names without knowing their owner.
+ * <p>
+ * Mappings are stored in open-addressing hash tables keyed by (name, descriptor) which are looked up without
+ * building intermediate key strings. The tables are serialized once per Minecraft version into the Connector
+ * folder and memory-mapped on subsequent launches. The file header records the Connector version that generated it,
+ * which determines the bundled source mappings, so that tables are regenerated when Connector is updated.
+ */
 public class IntermediateMapping {
     private static final Map<String, IntermediateMapping> INTERMEDIATE_MAPPINGS_CACHE = new HashMap<>();
     // Filter out non-obfuscated method names used in mapping namespaces as those don't need
@@ -23,10 +44,16 @@ public class IntermediateMapping {
     );
     private static final Logger LOGGER = LogUtils.getLogger();
 
+    private static final int MAGIC = 0x434E494D;
+    private static final int VERSION = 2;
+    private static final int HEADER_INTS = 7;
+    private static final char FIELD_DESC_SEPARATOR = ':';
+    private static final char NO_SEPARATOR = 0;
+
     // Original -> Mapped
-    private final Map<String, String> mappings;
+    private final FlatTable mappings;
     // Original + Descriptor -> Mapped
-    private final Map<String, String> extendedMappings;
+    private final FlatTable extendedMappings;
 
     public static IntermediateMapping get(String sourceNamespace) {
         IntermediateMapping existing = INTERMEDIATE_MAPPINGS_CACHE.get(sourceNamespace);
@@ -37,31 +64,22 @@ public class IntermediateMapping {
                     return existing;
                 }
 
-                LOGGER.debug(JarTransformer.TRANSFORM_MARKER, "Creating flat intermediate mapping for namespace {}", sourceNamespace);
-                // Intermediary sometimes contains duplicate names for different methods (why?). We exclude those.
-                Collection<String> prefixes = MAPPING_PREFIXES.get(sourceNamespace);
-                MappingResolverImpl resolver = FabricLoaderImpl.INSTANCE.getMappingResolver();
-                Map<String, String> resolved = new HashMap<>();
-                Map<String, IMappingFile.INode> buffer = new HashMap<>();
-                Map<String, String> extendedMappings = new HashMap<>();
-                resolver.getCurrentMap(sourceNamespace).getClasses().stream()
-                    .flatMap(cls -> Stream.concat(Stream.of(cls), Stream.concat(cls.getFields().stream(), cls.getMethods().stream()))
-                        .filter(node -> prefixes.stream().anyMatch(node.getOriginal()::startsWith)))
-                    .forEach(node -> {
-                        String original = node.getOriginal();
-                        String mapped = node.getMapped();
-                        String mapping = resolved.get(original);
-                        if (mapping != null && !mapping.equals(mapped)) {
-                            resolved.remove(original);
-                            extendedMappings.put(getMappingKey(buffer.remove(original)), mapping);
-                            extendedMappings.put(getMappingKey(node), mapped);
-                        }
-                        else if (!extendedMappings.containsKey(getMappingKey(node))) {
-                            resolved.put(original, mapped);
-                            buffer.put(original, node);
-                        }
-                    });
-                IntermediateMapping mapping = new IntermediateMapping(resolved, extendedMappings);
+                Path path = ConnectorUtil.CONNECTOR_FOLDER.resolve("mappings").resolve(sourceNamespace + "-" + FMLLoader.versionInfo().mcAndNeoFormVersion() + ".bin");
+                IntermediateMapping mapping = null;
+                if (ConnectorUtil.isCacheEnabled() && Files.exists(path)) {
+                    try {
+                        mapping = read(path, getSourceVersion());
+                    } catch (IOException e) {
+                        LOGGER.error("Error reading flat intermediate mapping from {}, regenerating", path, e);
+                    }
+                }
+                if (mapping == null) {
+                    ByteBuffer buffer = create(sourceNamespace, getSourceVersion());
+                    mapping = new IntermediateMapping(buffer);
+                    if (ConnectorUtil.isCacheEnabled()) {
+                        write(path, buffer);
+                    }
+                }
                 INTERMEDIATE_MAPPINGS_CACHE.put(sourceNamespace, mapping);
                 return mapping;
             }
@@ -69,33 +87,132 @@ public class IntermediateMapping {
         return existing;
     }
 
+    private static long getSourceVersion() {
+        return Hashing.sha256().hashString(EmbeddedDependencies.getJarCacheVersion(), StandardCharsets.UTF_8).asLong();
+    }
+
+    private static ByteBuffer create(String sourceNamespace, long sourceVersion) {
+        LOGGER.debug(JarTransformer.TRANSFORM_MARKER, "Creating flat intermediate mapping for namespace {}", sourceNamespace);
+        // Intermediary sometimes contains duplicate names for different methods (why?). We exclude those.
+        Collection<String> prefixes = MAPPING_PREFIXES.get(sourceNamespace);
+        MappingResolverImpl resolver = FabricLoaderImpl.INSTANCE.getMappingResolver();
+        Map<String, String> resolved = new HashMap<>();
+        Map<String, IMappingFile.INode> buffer = new HashMap<>();
+        Map<String, String> extendedMappings = new HashMap<>();
+        resolver.getCurrentMap(sourceNamespace).getClasses().stream()
+            .flatMap(cls -> Stream.concat(Stream.of(cls), Stream.concat(cls.getFields().stream(), cls.getMethods().stream()))
+                .filter(node -> prefixes.stream().anyMatch(node.getOriginal()::startsWith)))
+            .forEach(node -> {
+                String original = node.getOriginal();
+                String mapped = node.getMapped();
+                String mapping = resolved.get(original);
+                if (mapping != null && !mapping.equals(mapped)) {
+                    resolved.remove(original);
+                    extendedMappings.put(getMappingKey(buffer.remove(original)), mapping);
+                    extendedMappings.put(getMappingKey(node), mapped);
+                }
+                else if (!extendedMappings.containsKey(getMappingKey(node))) {
+                    resolved.put(original, mapped);
+                    buffer.put(original, node);
+                }
+            });
+        return serialize(sourceVersion, resolved, extendedMappings);
+    }
+
     private static String getMappingKey(IMappingFile.INode node) {
         if (node instanceof IMappingFile.IField field) {
             String desc = field.getDescriptor();
-            return field.getOriginal() + (desc != null ? ":" + desc : "");
+            return field.getOriginal() + (desc != null ? FIELD_DESC_SEPARATOR + desc : "");
         }
         else if (node instanceof IMappingFile.IMethod method) {
-            return method.getOriginal() + Objects.requireNonNullElse(method.getDescriptor(), "");
+            String desc = method.getDescriptor();
+            return method.getOriginal() + (desc != null ? desc : "");
         }
         return node.getOriginal();
     }
 
-    public IntermediateMapping(Map<String, String> mappings, Map<String, String> extendedMappings) {
-        this.mappings = mappings;
-        this.extendedMappings = extendedMappings;
+    /*
+     * Layout: int magic, int version, long sourceVersion, int mappingsCapacity, int extendedCapacity, int charCount,
+     * (int keyOffset, int keyLength, int valueOffset, int valueLength)[mappingsCapacity + extendedCapacity],
+     * char[charCount]. Empty slots have a key offset of -1.
+     */
+    private static ByteBuffer serialize(long sourceVersion, Map<String, String> mappings, Map<String, String> extendedMappings) {
+        int mappingsCapacity = FlatTable.capacityFor(mappings.size());
+        int extendedCapacity = FlatTable.capacityFor(extendedMappings.size());
+        int charCount = Stream.of(mappings, extendedMappings)
+            .flatMap(map -> map.entrySet().stream())
+            .mapToInt(e -> e.getKey().length() + e.getValue().length())
+            .sum();
+        int slotInts = (mappingsCapacity + extendedCapacity) * FlatTable.SLOT_INTS;
+        ByteBuffer buffer = ByteBuffer.allocate((HEADER_INTS + slotInts) * Integer.BYTES + charCount * Character.BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(sourceVersion).putInt(mappingsCapacity).putInt(extendedCapacity).putInt(charCount);
+
+        IntBuffer slots = buffer.slice(HEADER_INTS * Integer.BYTES, slotInts * Integer.BYTES).asIntBuffer();
+        for (int i = 0; i < slotInts; i += FlatTable.SLOT_INTS) {
+            slots.put(i, -1);
+        }
+        CharBuffer chars = buffer.slice((HEADER_INTS + slotInts) * Integer.BYTES, charCount * Character.BYTES).asCharBuffer();
+        FlatTable.fill(slots, 0, mappingsCapacity, chars, mappings);
+        FlatTable.fill(slots, mappingsCapacity * FlatTable.SLOT_INTS, extendedCapacity, chars, extendedMappings);
+        return buffer.rewind();
+    }
+
+    @Nullable
+    private static IntermediateMapping read(Path path, long sourceVersion) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+                throw new IOException("Invalid flat mapping file header");
+            }
+            if (buffer.getLong(2 * Integer.BYTES) != sourceVersion) {
+                LOGGER.debug(JarTransformer.TRANSFORM_MARKER, "Flat intermediate mapping at {} is outdated, regenerating", path);
+                return null;
+            }
+            try {
+                return new IntermediateMapping(buffer);
+            } catch (IndexOutOfBoundsException e) {
+                throw new IOException("Truncated flat mapping file", e);
+            }
+        }
+    }
+
+    private static void write(Path path, ByteBuffer buffer) {
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer data = buffer.duplicate().rewind();
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.error("Error saving flat intermediate mapping to {}", path, e);
+        }
+    }
+
+    private IntermediateMapping(ByteBuffer buffer) {
+        int mappingsCapacity = buffer.getInt(4 * Integer.BYTES);
+        int extendedCapacity = buffer.getInt(5 * Integer.BYTES);
+        int charCount = buffer.getInt(6 * Integer.BYTES);
+        int slotInts = (mappingsCapacity + extendedCapacity) * FlatTable.SLOT_INTS;
+        IntBuffer slots = buffer.slice(HEADER_INTS * Integer.BYTES, slotInts * Integer.BYTES).asIntBuffer();
+        CharBuffer chars = buffer.slice((HEADER_INTS + slotInts) * Integer.BYTES, charCount * Character.BYTES).asCharBuffer();
+        this.mappings = new FlatTable(slots.slice(0, mappingsCapacity * FlatTable.SLOT_INTS), chars);
+        this.extendedMappings = new FlatTable(slots.slice(mappingsCapacity * FlatTable.SLOT_INTS, extendedCapacity * FlatTable.SLOT_INTS), chars);
     }
 
     @Nullable
     public String map(String name) {
-        return this.mappings.get(name);
+        return this.mappings.get(name, NO_SEPARATOR, null);
     }
 
     @Nullable
     public String mapField(String name, @Nullable String desc) {
-        String mapped = this.mappings.get(name);
-        if (mapped == null) {
-            String qualifier = name + ":" + desc;
-            return this.extendedMappings.get(qualifier);
+        String mapped = this.mappings.get(name, NO_SEPARATOR, null);
+        if (mapped == null && desc != null) {
+            return this.extendedMappings.get(name, FIELD_DESC_SEPARATOR, desc);
         }
         return mapped;
     }
@@ -107,11 +224,111 @@ public class IntermediateMapping {
 
     @Nullable
     public String mapMethod(String name, String desc) {
-        String mapped = this.mappings.get(name);
+        String mapped = this.mappings.get(name, NO_SEPARATOR, null);
         if (mapped == null) {
-            String qualifier = name + desc;
-            return this.extendedMappings.get(qualifier);
+            return this.extendedMappings.get(name, NO_SEPARATOR, desc);
         }
         return mapped;
     }
+
+    /**
+     * Open-addressing hash table with linear probing over a flat int/char buffer pair.
+     * Keys are the concatenation of a name, an optional separator and an optional descriptor, but are
+     * hashed and compared piecewise so that lookups don't need to concatenate them.
+     */
+    private static final class FlatTable {
+        private static final int SLOT_INTS = 4;
+
+        private final IntBuffer slots;
+        private final CharBuffer chars;
+        private final int mask;
+        // Decoded values, populated lazily on first hit
+        private final String[] values;
+
+        FlatTable(IntBuffer slots, CharBuffer chars) {
+            this.slots = slots;
+            this.chars = chars;
+            int capacity = slots.capacity() / SLOT_INTS;
+            this.mask = capacity - 1;
+            this.values = new String[capacity];
+        }
+
+        static int capacityFor(int size) {
+            // Keep load factor at or below 0.5
+            return Math.max(2, Integer.highestOneBit(Math.max(1, size) * 2 - 1) << 1);
+        }
+
+        // Matches String#hashCode of the concatenated key
+        static int hash(String name, char separator, @Nullable String desc) {
+            int hash = name.hashCode();
+            if (separator != NO_SEPARATOR) {
+                hash = 31 * hash + separator;
+            }
+            if (desc != null) {
+                for (int i = 0; i < desc.length(); i++) {
+                    hash = 31 * hash + desc.charAt(i);
+                }
+            }
+            return hash ^ (hash >>> 16);
+        }
+
+        static void fill(IntBuffer slots, int start, int capacity, CharBuffer chars, Map<String, String> map) {
+            int mask = capacity - 1;
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                String key = entry.getKey();
+                String value = entry.getValue();
+                int slot = hash(key, NO_SEPARATOR, null) & mask;
+                while (slots.get(start + slot * SLOT_INTS) != -1) {
+                    slot = (slot + 1) & mask;
+                }
+                int index = start + slot * SLOT_INTS;
+                slots.put(index, chars.position());
+                slots.put(index + 1, key.length());
+                chars.put(key);
+                slots.put(index + 2, chars.position());
+                slots.put(index + 3, value.length());
+                chars.put(value);
+            }
+        }
+
+        @Nullable
+        String get(String name, char separator, @Nullable String desc) {
+            int keyLength = name.length() + (separator != NO_SEPARATOR ? 1 : 0) + (desc != null ? desc.length() : 0);
+            for (int slot = hash(name, separator, desc) & this.mask; ; slot = (slot + 1) & this.mask) {
+                int index = slot * SLOT_INTS;
+                int keyOffset = this.slots.get(index);
+                if (keyOffset == -1) {
+                    return null;
+                }
+                if (this.slots.get(index + 1) == keyLength && matches(keyOffset, name, separator, desc)) {
+                    String value = this.values[slot];
+                    if (value == null) {
+                        char[] array = new char[this.slots.get(index + 3)];
+                        this.chars.get(this.slots.get(index + 2), array);
+                        value = this.values[slot] = new String(array);
+                    }
+                    return value;
+                }
+            }
+        }
+
+        private boolean matches(int offset, String name, char separator, @Nullable String desc) {
+            for (int i = 0; i < name.length(); i++) {
+                if (this.chars.get(offset++) != name.charAt(i)) {
+                    return false;
+                }
+            }
+            if (separator != NO_SEPARATOR && this.chars.get(offset++) != separator) {
+                return false;
+            }
+            if (desc != null) {
+                for (int i = 0; i < desc.length(); i++) {
+                    if (this.chars.get(offset++) != desc.charAt(i)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
 }
@@ -0,0 +1,161 @@
+package org.sinytra.connector.transformer.jar;
+
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.sinytra.adapter.patch.api.MixinConstants;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Result of a single pre-scan of a jar, performed before the renamer runs and shared by all transformers of the jar.
+ * <p>
+ * Classes in mixin packages are read once and parsed without code, and refmaps and the access widener shipped inside the jar
+ * are read in the same pass.
+ * Other classes are not decompressed here, as they are classified by {@link ClassPrefilter} when the renamer reads them,
+ * and mixin configs are already part of the discovered {@link JarTransformer.FabricModFileMetadata mod metadata}.
+ */
+public final class JarAnalysis {
+    private static final String CLASS_EXTENSION = ".class";
+
+    private final Map<String, ClassNode> mixinClasses;
+    private final Set<String> accessorClasses;
+    private final Map<String, byte[]> refmaps;
+    @Nullable
+    private final byte[] accessWidener;
+
+    private JarAnalysis(Map<String, ClassNode> mixinClasses, Set<String> accessorClasses, Map<String, byte[]> refmaps, @Nullable byte[] accessWidener) {
+        this.mixinClasses = mixinClasses;
+        this.accessorClasses = accessorClasses;
+        this.refmaps = refmaps;
+        this.accessWidener = accessWidener;
+    }
+
+    /**
+     * Scan a jar.
+     *
+     * @param input         the jar file
+     * @param mixinPackages mixin packages of the jar's mixin configs, as paths
+     * @param refmaps       refmap names referenced by the jar's mixin configs
+     * @param accessWidener access widener resource name declared in the mod metadata, if any
+     * @return the analysis result
+     */
+    public static JarAnalysis analyze(File input, Collection<String> mixinPackages, Collection<String> refmaps, @Nullable String accessWidener) throws IOException {
+        Map<String, ClassNode> mixinClasses = new LinkedHashMap<>();
+        Set<String> accessorClasses = new HashSet<>();
+        Map<String, byte[]> refmapData = new HashMap<>();
+        byte[] accessWidenerData = null;
+
+        try (ZipFile zipFile = new ZipFile(input)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                if (refmaps.contains(name)) {
+                    refmapData.put(name, readEntry(zipFile, entry));
+                }
+                else if (name.equals(accessWidener)) {
+                    accessWidenerData = readEntry(zipFile, entry);
+                }
+                else if (name.endsWith(CLASS_EXTENSION) && isInPackage(name, mixinPackages)) {
+                    byte[] bytes = readEntry(zipFile, entry);
+                    ClassNode node = new ClassNode();
+                    new ClassReader(bytes).accept(node, ClassReader.SKIP_CODE);
+                    mixinClasses.put(node.name, node);
+                    if (hasAccessors(node)) {
+                        accessorClasses.add(node.name);
+                    }
+                }
+            }
+        }
+        return new JarAnalysis(mixinClasses, accessorClasses, refmapData, accessWidenerData);
+    }
+
+    /**
+     * {@return classes in mixin packages, parsed without code, by internal name}
+     */
+    public Map<String, ClassNode> getMixinClasses() {
+        return this.mixinClasses;
+    }
+
+    /**
+     * {@return whether a mixin class declares accessor or invoker methods}
+     *
+     * @param name internal name of the mixin class
+     */
+    public boolean hasAccessors(String name) {
+        return this.accessorClasses.contains(name);
+    }
+
+    /**
+     * {@return contents of refmaps found inside the jar, by resource name}
+     */
+    public Map<String, byte[]> getRefmaps() {
+        return this.refmaps;
+    }
+
+    /**
+     * {@return contents of the jar's access widener, or {@code null} if it doesn't have one}
+     */
+    @Nullable
+    public byte[] getAccessWidener() {
+        return this.accessWidener;
+    }
+
+    private static boolean isInPackage(String name, Collection<String> packages) {
+        for (String pkg : packages) {
+            if (name.startsWith(pkg)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] readEntry(ZipFile zipFile, ZipEntry entry) throws IOException {
+        try (InputStream is = zipFile.getInputStream(entry)) {
+            return is.readAllBytes();
+        }
+    }
+
+    private static boolean hasAccessors(ClassNode node) {
+        for (MethodNode method : node.methods) {
+            for (List<AnnotationNode> annotations : getAnnotations(method)) {
+                for (AnnotationNode annotation : annotations) {
+                    if (annotation.desc.equals(MixinConstants.ACCESSOR) || annotation.desc.equals(MixinConstants.INVOKER)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<List<AnnotationNode>> getAnnotations(MethodNode method) {
+        List<List<AnnotationNode>> annotations = new ArrayList<>(2);
+        if (method.visibleAnnotations != null) {
+            annotations.add(method.visibleAnnotations);
+        }
+        if (method.invisibleAnnotations != null) {
+            annotations.add(method.invisibleAnnotations);
+        }
+        return annotations;
+    }
+}
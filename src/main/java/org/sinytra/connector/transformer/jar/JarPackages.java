@@ -0,0 +1,73 @@
+package org.sinytra.connector.transformer.jar;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Package sets of transformed jars, stored in a text file next to each cached output jar.
+ * This lets later discovery steps know which packages a jar contains without opening it.
+ */
+final class JarPackages {
+    private static final String EXTENSION = ".packages";
+    private static final String CLASS_EXTENSION = ".class";
+    private static final String META_INF = "META-INF/";
+
+    /**
+     * Collect the packages of a jar and store them next to it.
+     *
+     * @param jar the jar file
+     * @return the jar's packages
+     */
+    static Set<String> save(Path jar) throws IOException {
+        Set<String> packages = collect(jar);
+        Path path = getPath(jar);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temp, packages);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return packages;
+    }
+
+    /**
+     * {@return the stored packages of a jar, collecting them first if they are missing}
+     *
+     * @param jar the jar file
+     */
+    static Set<String> load(Path jar) throws IOException {
+        Path path = getPath(jar);
+        if (Files.exists(path)) {
+            List<String> lines = Files.readAllLines(path);
+            return Set.copyOf(lines);
+        }
+        return save(jar);
+    }
+
+    private static Path getPath(Path jar) {
+        return jar.resolveSibling(jar.getFileName() + EXTENSION);
+    }
+
+    // Only reads the zip central directory. Matches packages derived by SecureJar, which are those containing classes
+    private static Set<String> collect(Path jar) throws IOException {
+        Set<String> packages = new HashSet<>();
+        try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                int idx = name.lastIndexOf('/');
+                if (idx > 0 && name.endsWith(CLASS_EXTENSION) && !name.startsWith(META_INF)) {
+                    packages.add(name.substring(0, idx).replace('/', '.'));
+                }
+            }
+        }
+        return Set.copyOf(packages);
+    }
+
+    private JarPackages() {}
+}
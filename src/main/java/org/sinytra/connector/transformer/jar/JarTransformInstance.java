@@ -1,6 +1,7 @@
 package org.sinytra.connector.transformer.jar;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.hash.Hashing;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.mojang.logging.LogUtils;
@@ -9,6 +10,7 @@ import net.fabricmc.loader.impl.FabricLoaderImpl;
 import net.fabricmc.loader.impl.MappingResolverImpl;
 import net.minecraftforge.fart.api.ClassProvider;
 import net.minecraftforge.fart.api.Renamer;
+import net.minecraftforge.fart.api.Transformer;
 import net.minecraftforge.fart.internal.EnhancedRemapper;
 import net.minecraftforge.srgutils.IMappingFile;
 import net.neoforged.fml.ModLoadingException;
@@ -33,14 +35,17 @@ import org.sinytra.connector.transformer.AccessWidenerTransformer;
 import org.sinytra.connector.transformer.AccessorRedirectTransformer;
 import org.sinytra.connector.transformer.FieldToMethodTransformer;
 import org.sinytra.connector.transformer.JarSignatureStripper;
+import org.sinytra.connector.transformer.LibraryResourceIndex;
 import org.sinytra.connector.transformer.MappingAwareReferenceMapper;
+import org.sinytra.connector.transformer.MixinPatchIndex;
 import org.sinytra.connector.transformer.MixinPatchTransformer;
 import org.sinytra.connector.transformer.OptimizedRenamingTransformer;
 import org.sinytra.connector.transformer.RefmapRemapper;
 import org.sinytra.connector.transformer.patch.ClassAnalysingTransformer;
-import org.sinytra.connector.transformer.patch.ClassNodeTransformer;
 import org.sinytra.connector.transformer.patch.ConnectorRefmapHolder;
+import org.sinytra.connector.transformer.patch.FusedClassTransformer;
 import org.sinytra.connector.transformer.patch.ReflectionRenamingTransformer;
+import org.sinytra.connector.util.ConnectorConfig;
 import org.sinytra.connector.util.ConnectorUtil;
 import org.slf4j.Logger;
 
@@ -54,7 +59,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 import java.util.zip.ZipFile;
@@ -67,13 +75,18 @@ public class JarTransformInstance {
     private static final Logger LOGGER = LogUtils.getLogger();
 
     private final MappingAwareReferenceMapper remapper;
-    private final List<? extends Patch> adapterPatches;
+    private final MixinPatchIndex patchIndex;
     private final LVTOffsets lvtOffsetsData;
     private final BytecodeFixerUpperFrontend bfu;
-    private final EnhancedRemapper enhancedRemapper;
+    private final OptimizedRenamingTransformer.IntermediaryClassProvider intermediaryClassProvider;
+    private final IMappingFile mappingFile;
+    // Post-processed string values, shared by the remappers of all jars
+    private final Map<String, Object> remappedValues = new ConcurrentHashMap<>();
     private final ClassLookup cleanClassLookup;
-    private final List<Path> libs;
+    private final LibraryResourceIndex libraryResources;
     private final PatchAuditTrail auditTrail;
+    private final ClassTransformCache classCache;
+    private final ClassHierarchy classHierarchy;
 
     public JarTransformInstance(ClassProvider classProvider, Collection<IModFile> loadedMods, List<Path> libs) {
         MappingResolverImpl resolver = FabricLoaderImpl.INSTANCE.getMappingResolver();
@@ -84,7 +97,8 @@ public class JarTransformInstance {
         Path patchDataPath = EmbeddedDependencies.getAdapterData(EmbeddedDependencies.ADAPTER_PATCH_DATA);
         try (Reader reader = Files.newBufferedReader(patchDataPath)) {
             JsonElement json = GSON.fromJson(reader, JsonElement.class);
-            this.adapterPatches = PatchSerialization.deserialize(json, JsonOps.INSTANCE);
+            List<? extends Patch> adapterPatches = PatchSerialization.deserialize(json, JsonOps.INSTANCE);
+            this.patchIndex = MixinPatchTransformer.createPatchIndex(Stream.concat(adapterPatches.stream(), AccessorRedirectTransformer.PATCHES.stream()).toList());
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -97,13 +111,17 @@ public class JarTransformInstance {
             throw new UncheckedIOException(e);
         }
 
-        IMappingFile mappingFile = FabricLoaderImpl.INSTANCE.getMappingResolver().getCurrentMap(JarTransformer.SOURCE_NAMESPACE);
-        ClassProvider intermediaryClassProvider = new OptimizedRenamingTransformer.IntermediaryClassProvider(classProvider, mappingFile, mappingFile.reverse(), s -> {});
-        this.enhancedRemapper = new OptimizedRenamingTransformer.MixinAwareEnhancedRemapper(intermediaryClassProvider, mappingFile, IntermediateMapping.get(JarTransformer.SOURCE_NAMESPACE), s -> {});
-        this.cleanClassLookup = createCleanClassLookup();
+        this.mappingFile = FabricLoaderImpl.INSTANCE.getMappingResolver().getCurrentMap(JarTransformer.SOURCE_NAMESPACE);
+        IMappingFile reverseMappingFile = this.mappingFile.reverse();
+        this.intermediaryClassProvider = new OptimizedRenamingTransformer.IntermediaryClassProvider(classProvider, this.mappingFile, reverseMappingFile, s -> {});
+        Path cleanPath = findCleanArtifact();
+        ClassHierarchyIndex cleanIndex = Files.isRegularFile(cleanPath) ? loadIndex(cleanPath) : null;
+        this.cleanClassLookup = createCleanClassLookup(cleanPath, cleanIndex);
         this.bfu = new BytecodeFixerUpperFrontend(this.cleanClassLookup, MixinClassLookup.INSTANCE);
-        this.libs = libs;
+        this.libraryResources = new LibraryResourceIndex(libs);
         this.auditTrail = PatchAuditTrail.create();
+        this.classCache = new ClassTransformCache(this.intermediaryClassProvider, this.mappingFile, this.libraryResources);
+        this.classHierarchy = new ClassHierarchy(this.intermediaryClassProvider, this.mappingFile, reverseMappingFile, cleanIndex);
 
         MixinPatchTransformer.completeSetup(loadedMods);
     }
@@ -112,6 +130,23 @@ public class JarTransformInstance {
         return bfu;
     }
 
+    public void logStatistics() {
+        this.intermediaryClassProvider.logStatistics();
+        this.classHierarchy.logStatistics();
+    }
+
+    /**
+     * Release library files held open for the duration of the transformation and prune the class cache.
+     */
+    public void close() {
+        try {
+            this.libraryResources.close();
+        } catch (IOException e) {
+            LOGGER.error("Error closing library resource index", e);
+        }
+        this.classCache.prune();
+    }
+
     @Nullable
     public PatchAuditTrail transformJar(File input, Path output, JarTransformer.FabricModFileMetadata metadata) throws IOException {
         Stopwatch stopwatch = Stopwatch.createStarted();
@@ -127,42 +162,68 @@ public class JarTransformInstance {
         }
 
         MappingResolverImpl resolver = FabricLoaderImpl.INSTANCE.getMappingResolver();
-        RefmapRemapper.RefmapFiles refmap = RefmapRemapper.processRefmaps(input.toPath(), metadata.refmaps(), this.remapper, this.libs);
+        // Mixin classes and refmaps are read in a single pass and shared by all transformers
+        JarAnalysis analysis = JarAnalysis.analyze(input, metadata.mixinPackages(), metadata.refmaps(), metadata.modMetadata().getAccessWidener());
+        RefmapRemapper.RefmapFiles refmap = RefmapRemapper.processRefmaps(input.toPath(), metadata.refmaps(), analysis.getRefmaps(), this.remapper, this.libraryResources);
         IMappingFile srgToIntermediary = resolver.getMap(JarTransformer.OBF_NAMESPACE, JarTransformer.SOURCE_NAMESPACE);
         IMappingFile intermediaryToSrg = resolver.getCurrentMap(JarTransformer.SOURCE_NAMESPACE);
         AccessorRedirectTransformer accessorRedirectTransformer = new AccessorRedirectTransformer(srgToIntermediary);
 
         PatchAuditTrail jarTrail = PatchAuditTrail.create();
-        List<Patch> extraPatches = Stream.concat(this.adapterPatches.stream(), AccessorRedirectTransformer.PATCHES.stream()).toList();
         ConnectorRefmapHolder refmapHolder = new ConnectorRefmapHolder(refmap.merged(), refmap.files());
         int fabricLVTCompatibility = FabricMixinBootstrap.MixinConfigDecorator.getMixinCompat(metadata.modMetadata());
-        PatchEnvironment environment = PatchEnvironment.create(refmapHolder, this.cleanClassLookup, this.bfu.unwrap(), fabricLVTCompatibility, jarTrail);
-        MixinPatchTransformer patchTransformer = new MixinPatchTransformer(this.lvtOffsetsData, environment, extraPatches);
+        MixinPatchTransformer.EnvironmentFactory environmentFactory = (holder, trail) -> PatchEnvironment.create(holder, this.cleanClassLookup, this.bfu.unwrap(), fabricLVTCompatibility, trail);
+        PatchEnvironment environment = environmentFactory.create(refmapHolder, jarTrail);
+        boolean parallel = ConnectorConfig.INSTANCE.get().parallelClassTransform();
+        MixinPatchTransformer patchTransformer = new MixinPatchTransformer(this.lvtOffsetsData, environmentFactory, refmapHolder, jarTrail, this.patchIndex, this.classHierarchy, parallel ? ParallelClassTransformer.getParallelism() : 1);
         RefmapRemapper refmapRemapper = new RefmapRemapper(refmap.files());
+        boolean remapRefs = metadata.refmaps().isEmpty();
+        // Created for each jar so that classes resolved by the remapper are released once the jar is done
+        EnhancedRemapper enhancedRemapper = new OptimizedRenamingTransformer.MixinAwareEnhancedRemapper(this.intermediaryClassProvider, this.mappingFile, IntermediateMapping.get(JarTransformer.SOURCE_NAMESPACE), this.remappedValues, s -> {});
+        List<Transformer> transformers = List.of(
+            new JarSignatureStripper(),
+            new FusedClassTransformer(
+                List.of(
+                    new FieldToMethodTransformer(metadata.modMetadata().getAccessWidener(), srgToIntermediary),
+                    accessorRedirectTransformer,
+                    new ReflectionRenamingTransformer(intermediaryToSrg, IntermediateMapping.get(JarTransformer.SOURCE_NAMESPACE))
+                ),
+                new OptimizedRenamingTransformer(enhancedRemapper, false, remapRefs),
+                List.of(new ClassAnalysingTransformer()),
+                patchTransformer,
+                this.classHierarchy
+            ),
+            refmapRemapper
+        );
+        // The access widener determines which fields are turned into method calls
+        byte[] accessWidener = analysis.getAccessWidener();
+        String accessWidenerDigest = accessWidener != null ? Hashing.sha256().hashBytes(accessWidener).toString() : "";
+        // Accessor renames are collected right before the renamer runs, so the cache context must be computed lazily
+        Transformer classTransformer = new ClassPrefilter(this.classCache.wrap(input.toPath(), () -> remapRefs + ";" + accessWidenerDigest + ";" + accessorRedirectTransformer.getCacheContext(), transformers, patchTransformer::isClassTransformed), accessorRedirectTransformer::getRedirectedOwners);
+        ParallelClassTransformer parallelTransformer = parallel ? new ParallelClassTransformer(classTransformer, input) : null;
         Renamer.Builder builder = Renamer.builder()
-            .add(new JarSignatureStripper())
-            .add(new ClassNodeTransformer(
-                new FieldToMethodTransformer(metadata.modMetadata().getAccessWidener(), srgToIntermediary),
-                accessorRedirectTransformer,
-                new ReflectionRenamingTransformer(intermediaryToSrg, IntermediateMapping.get(JarTransformer.SOURCE_NAMESPACE))
-            ))
-            .add(new OptimizedRenamingTransformer(this.enhancedRemapper, false, metadata.refmaps().isEmpty()))
-            .add(new ClassNodeTransformer(new ClassAnalysingTransformer()))
-            .add(patchTransformer)
-            .add(refmapRemapper)
+            .add(parallelTransformer != null ? parallelTransformer : classTransformer)
             .logger(s -> LOGGER.trace(JarTransformer.TRANSFORM_MARKER, s))
             .debug(s -> LOGGER.trace(JarTransformer.TRANSFORM_MARKER, s))
-            .ignoreJarPathPrefix("assets/", "data/");
+            .ignoreJarPathPrefix("assets/", "data/")
+            // Classes are split across the shared jar pool instead of the renamer's own threads
+            .threads(1);
         if (!metadata.containsAT()) {
             builder.add(new AccessWidenerTransformer(metadata.modMetadata().getAccessWidener(), resolver, IntermediateMapping.get(JarTransformer.SOURCE_NAMESPACE)));
         }
         try (Renamer renamer = builder.build()) {
-            accessorRedirectTransformer.analyze(input, metadata.mixinPackages(), environment);
+            accessorRedirectTransformer.analyze(analysis, environment);
 
-            renamer.run(input, output.toFile());
+            try {
+                renamer.run(input, output.toFile());
+            } finally {
+                if (parallelTransformer != null) {
+                    parallelTransformer.close();
+                }
+            }
 
             try (FileSystem zipFile = FileSystems.newFileSystem(output)) {
-                patchTransformer.finalize(zipFile.getPath("/"), metadata.mixinConfigs(), refmap.files(), refmapHolder.getDirtyRefmaps());
+                patchTransformer.finalize(zipFile.getPath("/"), metadata.mixinConfigs(), refmap.files());
             }
         } catch (Throwable t) {
             LOGGER.error("Encountered error while transforming jar file {}", input.getAbsolutePath(), t);
@@ -182,27 +243,37 @@ public class JarTransformInstance {
         LOGGER.debug(JarTransformer.TRANSFORM_MARKER, "Skipping transformation of jar {} after {} ms as it contains generated metadata, assuming it's a java library", input.getName(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
     }
 
-    private static ClassLookup createCleanClassLookup() {
-        String mcAndNeoFormVersion = FMLLoader.versionInfo().mcAndNeoFormVersion();
+    private static Path findCleanArtifact() {
         if (FMLEnvironment.production) {
-            MavenCoordinate coords = new MavenCoordinate("net.minecraft", FMLEnvironment.dist.isClient() ? "client" : "server", "", "srg", mcAndNeoFormVersion);
+            MavenCoordinate coords = new MavenCoordinate("net.minecraft", FMLEnvironment.dist.isClient() ? "client" : "server", "", "srg", FMLLoader.versionInfo().mcAndNeoFormVersion());
             Path path = LibraryFinder.findPathForMaven(coords);
             if (!Files.exists(path)) {
                 throw new ModLoadingException(ModLoadingIssue.error("fml.modloadingissue.corrupted_installation").withAffectedPath(path));
             }
-            ZipFile zipFile = uncheck(() -> new ZipFile(path.toFile()));
-            return new ZipClassLookup(zipFile);
+            return path;
         }
         else {
             // Search for system property
-            Path cleanPath = Optional.ofNullable(System.getProperty("connector.clean.path"))
+            return Optional.ofNullable(System.getProperty("connector.clean.path"))
                 .map(Path::of)
                 .filter(Files::exists)
                 .orElseThrow(() -> new RuntimeException("Could not determine clean minecraft artifact path"));
-            return new SimpleClassLookup(ClassProvider.fromPaths(cleanPath));
         }
     }
 
+    private static ClassLookup createCleanClassLookup(Path path, @Nullable ClassHierarchyIndex index) {
+        ClassLookup lookup = FMLEnvironment.production
+            ? new ZipClassLookup(uncheck(() -> new ZipFile(path.toFile())))
+            : new SimpleClassLookup(ClassProvider.fromPaths(path));
+        return index != null ? new IndexedClassLookup(index, lookup) : lookup;
+    }
+
+    @Nullable
+    private static ClassHierarchyIndex loadIndex(Path jar) {
+        String version = FMLLoader.versionInfo().mcAndNeoFormVersion() + "-" + FMLEnvironment.dist.name().toLowerCase(Locale.ROOT);
+        return ClassHierarchyIndex.load(jar, version);
+    }
+
     public void saveAuditReport() {
         try {
             Path path = ConnectorUtil.CONNECTOR_FOLDER.resolve("patch_audit.txt");
@@ -0,0 +1,193 @@
+package org.sinytra.connector.transformer.jar;
+
+import com.mojang.datafixers.util.Pair;
+import com.mojang.logging.LogUtils;
+import org.sinytra.connector.service.hacks.ConnectorForkJoinThreadFactory;
+import org.sinytra.connector.util.ConnectorUtil;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Runs jar transformations on a work-stealing pool bounded to the configured parallelism.
+ * Jars are submitted largest-first, so that big mods don't end up at the tail of the queue and
+ * determine the total transformation time while the remaining workers sit idle.
+ * <p>
+ * When a heap budget is set, jars are only admitted while their combined estimated footprint fits within it.
+ * Admission is best fit: whenever capacity frees up, the largest pending jar that fits is started, so smaller jars
+ * don't queue behind a large one waiting for room. A jar that exceeds the budget on its own is admitted once nothing
+ * else is in flight. Footprints are estimated for all jars concurrently before the first one is submitted, and also
+ * determine the submission order. Without a budget, jars are ordered by their file size instead.
+ */
+final class JarTransformScheduler {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    // Approximate ratio between the size of class files and their in-memory ClassNode trees, including refmaps and generated classes
+    private static final int FOOTPRINT_FACTOR = 4;
+    private static final long MIB = 1024 * 1024;
+
+    private final int parallelism;
+    private final long heapBudget;
+    private final boolean parallelClasses;
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong peakInFlight = new AtomicLong();
+
+    /**
+     * @param parallelism maximum number of jars transformed at once
+     * @param heapBudget      estimated heap available to jars in flight, in bytes, or {@code 0} for no limit
+     * @param parallelClasses whether classes of each jar are transformed in parallel by a {@link ParallelClassTransformer}
+     */
+    JarTransformScheduler(int parallelism, long heapBudget, boolean parallelClasses) {
+        this.parallelism = parallelism;
+        this.heapBudget = heapBudget;
+        this.parallelClasses = parallelClasses;
+    }
+
+    /**
+     * Transforms all given jars and waits for every task to complete.
+     *
+     * @param jars   jars to transform
+     * @param action creates the transformation task for a jar
+     * @return pairs of input files and their result futures, in the original order of {@code jars}
+     */
+    <T> List<Pair<File, Future<T>>> run(List<JarTransformer.TransformableJar> jars, Function<JarTransformer.TransformableJar, Callable<T>> action) throws InterruptedException {
+        int threads = Math.max(1, Math.min(this.parallelism, jars.size()));
+        LOGGER.debug(JarTransformer.TRANSFORM_MARKER, "Transforming {} jars using {} threads", jars.size(), threads);
+
+        Budget budget = this.heapBudget > 0 ? new Budget(this.heapBudget) : null;
+        List<Long> weights;
+        if (budget != null) {
+            LOGGER.debug(JarTransformer.TRANSFORM_MARKER, "Limiting estimated in-flight transform footprint to {} MiB", this.heapBudget / MIB);
+            weights = ConnectorUtil.mapConcurrently(jars, jar -> estimateFootprint(jar, threads));
+        }
+        else {
+            weights = jars.stream().map(JarTransformScheduler::getWeight).toList();
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads, new ConnectorForkJoinThreadFactory(ForkJoinPool.defaultForkJoinWorkerThreadFactory), null, false);
+        try {
+            List<Pair<File, Future<T>>> futures = new ArrayList<>(Collections.nCopies(jars.size(), null));
+            List<Integer> pending = IntStream.range(0, jars.size()).boxed()
+                .sorted(Comparator.<Integer>comparingLong(weights::get).reversed())
+                .collect(Collectors.toCollection(ArrayList::new));
+            while (!pending.isEmpty()) {
+                if (budget == null) {
+                    int i = pending.remove(0);
+                    JarTransformer.TransformableJar jar = jars.get(i);
+                    futures.set(i, Pair.of(jar.input(), pool.submit(action.apply(jar))));
+                    continue;
+                }
+                // Apply backpressure until a pending jar fits within the budget
+                int i = budget.acquireBestFit(pending, weights);
+                JarTransformer.TransformableJar jar = jars.get(i);
+                long footprint = weights.get(i);
+                Callable<T> task = action.apply(jar);
+                futures.set(i, Pair.of(jar.input(), pool.submit(() -> {
+                    this.peakInFlight.accumulateAndGet(this.inFlight.addAndGet(footprint), Math::max);
+                    try {
+                        return task.call();
+                    } finally {
+                        this.inFlight.addAndGet(-footprint);
+                        budget.release(footprint);
+                    }
+                })));
+            }
+            pool.shutdown();
+            if (!pool.awaitTermination(1, TimeUnit.HOURS)) {
+                throw new RuntimeException("Timed out waiting for jar remap");
+            }
+            if (budget != null) {
+                LOGGER.debug(JarTransformer.TRANSFORM_MARKER, "Peak estimated in-flight transform footprint: {} MiB", this.peakInFlight.get() / MIB);
+            }
+            return futures;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long getWeight(JarTransformer.TransformableJar jar) {
+        return jar.input().length();
+    }
+
+    /**
+     * Estimate the heap held while transforming a jar, based on the uncompressed size of its class files.
+     * Falls back to the compressed jar size when the size of an entry is unknown.
+     * When classes are transformed in parallel, the classes held in the transformer's window are added,
+     * estimated by the size of the largest class.
+     *
+     * @param threads number of threads of the pool the jar's classes are transformed on
+     */
+    private long estimateFootprint(JarTransformer.TransformableJar jar, int threads) {
+        long classBytes = 0;
+        long largestClass = 0;
+        try (ZipFile zipFile = new ZipFile(jar.input())) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.isDirectory() && entry.getName().endsWith(".class")) {
+                    long size = entry.getSize();
+                    size = size >= 0 ? size : entry.getCompressedSize();
+                    classBytes += size;
+                    largestClass = Math.max(largestClass, size);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.debug(JarTransformer.TRANSFORM_MARKER, "Error reading entries of {}, estimating from file size", jar.input(), e);
+            classBytes = getWeight(jar);
+        }
+        long window = this.parallelClasses ? (long) threads * ParallelClassTransformer.WINDOW_PER_THREAD * largestClass : 0;
+        return (Math.max(classBytes, getWeight(jar)) + window) * FOOTPRINT_FACTOR;
+    }
+
+    private static final class Budget {
+        private long available;
+        private int running;
+
+        Budget(long capacity) {
+            this.available = capacity;
+        }
+
+        /**
+         * Wait until a pending jar fits within the remaining budget, then reserve its footprint.
+         *
+         * @param pending    indices of pending jars, ordered by descending footprint; the admitted jar is removed
+         * @param footprints estimated footprints of all jars
+         * @return index of the admitted jar
+         */
+        synchronized int acquireBestFit(List<Integer> pending, List<Long> footprints) throws InterruptedException {
+            while (true) {
+                for (int p = 0; p < pending.size(); p++) {
+                    long footprint = footprints.get(pending.get(p));
+                    // Oversized jars run on their own
+                    if (footprint <= this.available || this.running == 0) {
+                        this.available -= footprint;
+                        this.running++;
+                        return pending.remove(p);
+                    }
+                }
+                wait();
+            }
+        }
+
+        synchronized void release(long footprint) {
+            this.available += footprint;
+            this.running--;
+            notifyAll();
+        }
+    }
+}
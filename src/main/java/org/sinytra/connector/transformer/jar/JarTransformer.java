@@ -22,7 +22,10 @@ import org.sinytra.adapter.patch.api.PatchAuditTrail;
 import org.sinytra.connector.ConnectorEarlyLoader;
 import org.sinytra.connector.locator.ConnectorFabricModMetadata;
 import org.sinytra.connector.locator.DependencyResolver;
+import org.sinytra.connector.locator.ModDiscoveryIndex;
+import org.sinytra.connector.util.ConnectorConfig;
 import org.sinytra.connector.util.ConnectorUtil;
+import org.sinytra.connector.util.FileDigestIndex;
 import org.slf4j.Logger;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
@@ -30,6 +33,7 @@ import org.spongepowered.asm.launch.MixinLaunchPluginLegacy;
 import org.spongepowered.asm.mixin.transformer.ClassInfo;
 import org.spongepowered.asm.service.MixinService;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -44,13 +48,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.jar.Attributes;
@@ -87,31 +91,39 @@ public final class JarTransformer {
     }
 
     public static List<TransformedFabricModPath> transform(List<TransformableJar> jars, List<Path> libs, Collection<IModFile> loadedMods) {
-        List<TransformedFabricModPath> transformed = new ArrayList<>();
+        // Persist input digests computed during discovery
+        FileDigestIndex.INSTANCE.save();
+        // Keep results in the order of input jars, regardless of which ones were cached
+        List<TransformedFabricModPath> transformed = new ArrayList<>(Collections.nCopies(jars.size(), null));
 
         List<Path> inputLibs = new ArrayList<>(libs);
         List<TransformableJar> needTransforming = new ArrayList<>();
-        for (TransformableJar jar : jars) {
+        List<Integer> needTransformingIndices = new ArrayList<>();
+        for (int i = 0; i < jars.size(); i++) {
+            TransformableJar jar = jars.get(i);
             if (jar.cacheFile().isUpToDate()) {
-                transformed.add(jar.toTransformedPath());
+                transformed.set(i, uncheck(jar::toTransformedPath));
             }
             else {
                 needTransforming.add(jar);
+                needTransformingIndices.add(i);
             }
             inputLibs.add(jar.input().toPath());
         }
 
         if (!needTransforming.isEmpty()) {
-            transformed.addAll(transformJars(needTransforming, inputLibs, loadedMods));
+            List<TransformedFabricModPath> results = transformJars(needTransforming, inputLibs, loadedMods);
+            for (int i = 0; i < results.size(); i++) {
+                transformed.set(needTransformingIndices.get(i), results.get(i));
+            }
         }
 
-        return transformed;
+        return transformed.stream().filter(Objects::nonNull).toList();
     }
 
     public static TransformableJar cacheTransformableJar(File input) throws IOException {
         Files.createDirectories(ConnectorUtil.CONNECTOR_FOLDER);
-        String name = input.getName().split("\\.(?!.*\\.)")[0];
-        Path output = ConnectorUtil.CONNECTOR_FOLDER.resolve(name + MAPPED_SUFFIX + ".jar");
+        Path output = getOutputPath(input);
 
         FabricModFileMetadata metadata = readModMetadata(input);
         FabricModPath path = new FabricModPath(output, metadata);
@@ -119,41 +131,46 @@ public final class JarTransformer {
         return new TransformableJar(input, path, cacheFile);
     }
 
+    /**
+     * {@return the path the transformed jar of an input is written to}
+     */
+    public static Path getOutputPath(File input) {
+        String name = input.getName().split("\\.(?!.*\\.)")[0];
+        return ConnectorUtil.CONNECTOR_FOLDER.resolve(name + MAPPED_SUFFIX + ".jar");
+    }
+
     private static List<TransformedFabricModPath> transformJars(List<TransformableJar> paths, List<Path> libs, Collection<IModFile> loadedMods) {
         Stopwatch stopwatch = Stopwatch.createStarted();
         ProgressMeter progress = StartupNotificationManager.prependProgressBar("[Connector] Transforming Jars", paths.size());
         try {
             ProgressMeter initProgress = StartupNotificationManager.prependProgressBar("[Connector] Initializing Transformer", 0);
             JarTransformInstance transformInstance;
+            EarlyJSCoremodTransformer transformingClassProvider;
             try {
                 ClassProvider classProvider = ClassProvider.fromPaths(libs.toArray(Path[]::new));
-                EarlyJSCoremodTransformer transformingClassProvider = EarlyJSCoremodTransformer.create(classProvider, loadedMods);
+                transformingClassProvider = EarlyJSCoremodTransformer.create(classProvider, loadedMods);
                 ILaunchPluginService.ITransformerLoader loader = name -> transformingClassProvider.getClassBytes(name.replace('.', '/')).orElseThrow(() -> new ClassNotFoundException(name));
                 setMixinClassProvider(loader);
                 transformInstance = new JarTransformInstance(transformingClassProvider, loadedMods, libs);
             } finally {
                 initProgress.complete();
             }
-            ExecutorService executorService = Executors.newFixedThreadPool(paths.size());
-            List<Pair<File, Future<Pair<FabricModPath, PatchAuditTrail>>>> futures = paths.stream()
-                .map(jar -> {
-                    Future<Pair<FabricModPath, PatchAuditTrail>> future = executorService.submit(() -> {
-                        Pair<FabricModPath, PatchAuditTrail> pair = jar.transform(transformInstance);
-                        progress.increment();
-                        return pair;
-                    });
-                    return Pair.of(jar.input(), future);
-                })
-                .toList();
-            executorService.shutdown();
-            if (!executorService.awaitTermination(1, TimeUnit.HOURS)) {
-                throw new RuntimeException("Timed out waiting for jar remap");
+            ConnectorConfig config = ConnectorConfig.INSTANCE.get();
+            JarTransformScheduler scheduler = new JarTransformScheduler(config.getTransformParallelism(), config.getTransformHeapBudget(), config.parallelClassTransform());
+            List<Pair<File, Future<TransformedFabricModPath>>> futures;
+            try {
+                futures = scheduler.run(paths, jar -> () -> {
+                    TransformedFabricModPath result = jar.transform(transformInstance);
+                    progress.increment();
+                    return result;
+                });
+            } finally {
+                transformInstance.close();
             }
             List<TransformedFabricModPath> results = futures.stream()
                 .map(pair -> {
                     try {
-                        Pair<FabricModPath, PatchAuditTrail> result = pair.getSecond().get();
-                        return new TransformedFabricModPath(pair.getFirst().toPath(), result.getFirst(), result.getSecond());
+                        return pair.getSecond().get();
                     } catch (Throwable t) {
                         throw new ModLoadingException(ConnectorEarlyLoader.createGenericLoadingIssue(t, "Error transforming file " + pair.getFirst().getName()));
                     }
@@ -162,6 +179,8 @@ public final class JarTransformer {
                 .toList();
             uncheck(() -> transformInstance.getBfu().saveGeneratedAdapterJar());
             transformInstance.saveAuditReport();
+            transformInstance.logStatistics();
+            transformingClassProvider.logStatistics();
             stopwatch.stop();
             LOGGER.debug(TRANSFORM_MARKER, "Processed all jars in {} ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return results;
@@ -174,22 +193,47 @@ public final class JarTransformer {
     }
 
     private static FabricModFileMetadata readModMetadata(File input) throws IOException {
+        ModDiscoveryIndex.ModJarData data = ModDiscoveryIndex.INSTANCE.getModJarData(input.toPath());
+        if (data == null) {
+            data = readModJarData(input);
+            ModDiscoveryIndex.INSTANCE.putModJarData(input.toPath(), data);
+        }
+        return createModMetadata(data);
+    }
+
+    private static FabricModFileMetadata createModMetadata(ModDiscoveryIndex.ModJarData data) throws IOException {
+        ConnectorFabricModMetadata metadata;
+        try (InputStream ins = new ByteArrayInputStream(data.modJson())) {
+            LoaderModMetadata rawMetadata = ModMetadataParser.parseMetadata(ins, "", Collections.emptyList(), DependencyResolver.VERSION_OVERRIDES, DependencyResolver.DEPENDENCY_OVERRIDES.get(), false);
+            DependencyResolver.removeAliasedModDependencyConstraints(rawMetadata);
+            metadata = new ConnectorFabricModMetadata(rawMetadata);
+        } catch (ParseMetadataException e) {
+            throw new RuntimeException(e);
+        }
+        Set<String> configs = new HashSet<>(data.mixinConfigs());
+        Attributes manifestAttributes = new Attributes();
+        data.manifestAttributes().forEach(manifestAttributes::putValue);
+        boolean generated = isGeneratedLibraryJarMetadata(manifestAttributes, metadata);
+        return new FabricModFileMetadata(metadata, Set.copyOf(configs), configs, new HashSet<>(data.refmaps()), new HashSet<>(data.mixinPackages()), manifestAttributes, data.containsAT(), generated);
+    }
+
+    private static ModDiscoveryIndex.ModJarData readModJarData(File input) throws IOException {
         try (JarFile jarFile = new JarFile(input)) {
-            ConnectorFabricModMetadata metadata;
+            byte[] modJson;
             Set<String> configs;
             try (InputStream ins = jarFile.getInputStream(jarFile.getEntry(ConnectorUtil.FABRIC_MOD_JSON))) {
+                modJson = ins.readAllBytes();
+            }
+            try (InputStream ins = new ByteArrayInputStream(modJson)) {
                 LoaderModMetadata rawMetadata = ModMetadataParser.parseMetadata(ins, "", Collections.emptyList(), DependencyResolver.VERSION_OVERRIDES, DependencyResolver.DEPENDENCY_OVERRIDES.get(), false);
-                DependencyResolver.removeAliasedModDependencyConstraints(rawMetadata);
-                metadata = new ConnectorFabricModMetadata(rawMetadata);
-
-                configs = new HashSet<>(metadata.getMixinConfigs(FabricLoader.getInstance().getEnvironmentType()));
+                configs = new LinkedHashSet<>(rawMetadata.getMixinConfigs(FabricLoader.getInstance().getEnvironmentType()));
             } catch (ParseMetadataException e) {
                 throw new RuntimeException(e);
             }
             boolean containsAT = jarFile.getEntry(ConnectorUtil.AT_PATH) != null;
 
-            Set<String> refmaps = new HashSet<>();
-            Set<String> mixinPackages = new HashSet<>();
+            Set<String> refmaps = new LinkedHashSet<>();
+            Set<String> mixinPackages = new LinkedHashSet<>();
             for (String configName : configs) {
                 ZipEntry entry = jarFile.getEntry(configName);
                 if (entry != null) {
@@ -204,9 +248,11 @@ public final class JarTransformer {
                         readMixinConfigPackages(input, jarFile, entry, refmaps, mixinPackages);
                     }
                 });
-            Attributes manifestAttributes = Optional.ofNullable(jarFile.getManifest()).map(Manifest::getMainAttributes).orElseGet(Attributes::new);
-            boolean generated = isGeneratedLibraryJarMetadata(manifestAttributes, metadata);
-            return new FabricModFileMetadata(metadata, Set.copyOf(configs), configs, refmaps, mixinPackages, manifestAttributes, containsAT, generated);
+            Map<String, String> manifestAttributes = new LinkedHashMap<>();
+            Optional.ofNullable(jarFile.getManifest())
+                .map(Manifest::getMainAttributes)
+                .ifPresent(attributes -> attributes.forEach((key, value) -> manifestAttributes.put(key.toString(), value.toString())));
+            return new ModDiscoveryIndex.ModJarData(modJson, List.copyOf(configs), List.copyOf(refmaps), List.copyOf(mixinPackages), manifestAttributes, containsAT);
         }
     }
 
@@ -263,20 +309,22 @@ public final class JarTransformer {
 
     public record FabricModPath(Path path, FabricModFileMetadata metadata) {}
 
-    public record TransformedFabricModPath(Path input, FabricModPath output, @Nullable PatchAuditTrail auditTrail) {}
+    public record TransformedFabricModPath(Path input, FabricModPath output, Set<String> packages, @Nullable PatchAuditTrail auditTrail) {}
 
     public record FabricModFileMetadata(ConnectorFabricModMetadata modMetadata, Collection<String> visibleMixinConfigs, Collection<String> mixinConfigs, Set<String> refmaps, Set<String> mixinPackages, Attributes manifestAttributes, boolean containsAT, boolean generated) {}
 
     public record TransformableJar(File input, FabricModPath modPath, ConnectorUtil.CacheFile cacheFile) {
-        public Pair<FabricModPath, PatchAuditTrail> transform(JarTransformInstance transformInstance) throws IOException {
+        public TransformedFabricModPath transform(JarTransformInstance transformInstance) throws IOException {
             Files.deleteIfExists(this.modPath.path);
             PatchAuditTrail audit = transformInstance.transformJar(this.input, this.modPath.path, this.modPath.metadata());
+            // Store packages before marking the output as up to date
+            Set<String> packages = JarPackages.save(this.modPath.path);
             this.cacheFile.save();
-            return Pair.of(this.modPath, audit);
+            return new TransformedFabricModPath(this.input.toPath(), this.modPath, packages, audit);
         }
 
-        public TransformedFabricModPath toTransformedPath() {
-            return new TransformedFabricModPath(this.input.toPath(), this.modPath, null);
+        public TransformedFabricModPath toTransformedPath() throws IOException {
+            return new TransformedFabricModPath(this.input.toPath(), this.modPath, JarPackages.load(this.modPath.path), null);
         }
     }
 }
@@ -0,0 +1,114 @@
+package org.sinytra.connector.transformer.jar;
+
+import net.minecraftforge.fart.api.Transformer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Transforms the classes of a jar ahead of the renamer, split into tasks on the fork join pool the jar is being transformed on.
+ * When called from the jar scheduler's pool, class tasks share its workers with other jars instead of starting new threads.
+ * <p>
+ * Classes are transformed in a sliding window following the jar's entry order: whenever the renamer requests a class,
+ * tasks for the next classes are forked until the window is full again. At most {@link #WINDOW_PER_THREAD} classes per
+ * pool thread are transformed or held ahead of the renamer at any time. Classes requested outside of the window are
+ * transformed directly. Resources, extras and finalization still run in order once all classes are done.
+ */
+final class ParallelClassTransformer implements Transformer, Closeable {
+    static final int WINDOW_PER_THREAD = 2;
+    private static final String CLASS_EXTENSION = ".class";
+
+    private final Transformer delegate;
+    private final ZipFile zipFile;
+    private final Iterator<ZipEntry> upcoming;
+    private final int window;
+    // Entry name -> task transforming the class ahead of the renamer
+    private final Map<String, ForkJoinTask<ClassEntry>> tasks = new HashMap<>();
+    private final Set<String> processed = new HashSet<>();
+
+    /**
+     * @param delegate transformer run on each class
+     * @param input    the jar file, kept open to read upcoming classes until closed
+     */
+    ParallelClassTransformer(Transformer delegate, File input) throws IOException {
+        this.delegate = delegate;
+        this.zipFile = new ZipFile(input);
+        List<ZipEntry> classes = this.zipFile.stream()
+            .filter(entry -> !entry.isDirectory() && entry.getName().endsWith(CLASS_EXTENSION))
+            .map(ZipEntry.class::cast)
+            .toList();
+        this.upcoming = classes.iterator();
+        this.window = getParallelism() * WINDOW_PER_THREAD;
+    }
+
+    /**
+     * {@return the parallelism of the pool class tasks are forked to from the current thread}
+     */
+    static int getParallelism() {
+        ForkJoinPool pool = ForkJoinTask.getPool();
+        return pool != null ? pool.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+    }
+
+    // Called by the renamer on a single thread
+    @Override
+    public ClassEntry process(ClassEntry entry) {
+        this.processed.add(entry.getName());
+        ForkJoinTask<ClassEntry> task = this.tasks.remove(entry.getName());
+        fill();
+        return task != null ? task.join() : this.delegate.process(entry);
+    }
+
+    private void fill() {
+        while (this.tasks.size() < this.window && this.upcoming.hasNext()) {
+            ZipEntry zipEntry = this.upcoming.next();
+            String name = zipEntry.getName();
+            if (!this.processed.contains(name) && !this.tasks.containsKey(name)) {
+                this.tasks.put(name, ForkJoinTask.adapt(() -> this.delegate.process(readEntry(zipEntry))).fork());
+            }
+        }
+    }
+
+    private ClassEntry readEntry(ZipEntry zipEntry) {
+        try (InputStream is = this.zipFile.getInputStream(zipEntry)) {
+            return ClassEntry.create(zipEntry.getName(), zipEntry.getTime(), is.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public ResourceEntry process(ResourceEntry entry) {
+        return this.delegate.process(entry);
+    }
+
+    @Override
+    public ManifestEntry process(ManifestEntry entry) {
+        return this.delegate.process(entry);
+    }
+
+    @Override
+    public Collection<? extends Entry> getExtras() {
+        return this.delegate.getExtras();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.tasks.values().forEach(task -> task.cancel(false));
+        this.tasks.clear();
+        this.zipFile.close();
+    }
+}
@@ -10,7 +10,7 @@ import org.sinytra.adapter.patch.util.MethodQualifier;
 
 import java.util.Map;
 
-public class ClassAnalysingTransformer implements ClassNodeTransformer.ClassProcessor {
+public class ClassAnalysingTransformer implements ClassProcessor {
     private static final Map<MethodQualifier, MethodQualifier> REPLACEMENTS = Map.of(
         new MethodQualifier("Ljava/lang/Class;", "getResourceAsStream", "(Ljava/lang/String;)Ljava/io/InputStream;"),
         new MethodQualifier("org/sinytra/connector/mod/ConnectorMod", "getModResourceAsStream", "(Ljava/lang/Class;Ljava/lang/String;)Ljava/io/InputStream;"),
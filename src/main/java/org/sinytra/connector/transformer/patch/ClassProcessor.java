@@ -0,0 +1,31 @@
+package org.sinytra.connector.transformer.patch;
+
+import net.minecraftforge.fart.api.Transformer;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.sinytra.adapter.patch.api.Patch;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ClassProcessor {
+    Patch.Result process(ClassNode node);
+
+    /**
+     * Cheap check on the raw input class, used to skip processing classes that can't be affected.
+     *
+     * @param reader reader of the original class bytes
+     * @return whether {@link #process(ClassNode)} should be called for this class
+     */
+    default boolean accepts(ClassReader reader) {
+        return true;
+    }
+
+    default Transformer.ResourceEntry process(Transformer.ResourceEntry entry) {
+        return entry;
+    }
+
+    default Collection<? extends Transformer.Entry> getExtras() {
+        return List.of();
+    }
+}
@@ -7,15 +7,31 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class ConnectorRefmapHolder implements RefmapHolder {
     private final MappingAwareReferenceMapper.SimpleRefmap merged;
     private final Map<String, MappingAwareReferenceMapper.SimpleRefmap> refmapFiles;
+    // Shared by all forks, as they read and update the same refmaps
+    private final ReadWriteLock lock;
     private final Set<String> dirtyRefmaps = new HashSet<>();
 
     public ConnectorRefmapHolder(MappingAwareReferenceMapper.SimpleRefmap merged, Map<String, MappingAwareReferenceMapper.SimpleRefmap> refmapFiles) {
+        this(merged, refmapFiles, new ReentrantReadWriteLock());
+    }
+
+    private ConnectorRefmapHolder(MappingAwareReferenceMapper.SimpleRefmap merged, Map<String, MappingAwareReferenceMapper.SimpleRefmap> refmapFiles, ReadWriteLock lock) {
         this.merged = merged;
         this.refmapFiles = refmapFiles;
+        this.lock = lock;
+    }
+
+    /**
+     * {@return a holder sharing this holder's refmaps, with its own set of dirty refmaps to be used by a single thread}
+     */
+    public ConnectorRefmapHolder fork() {
+        return new ConnectorRefmapHolder(this.merged, this.refmapFiles, this.lock);
     }
 
     public Set<String> getDirtyRefmaps() {
@@ -25,20 +41,30 @@ public class ConnectorRefmapHolder implements RefmapHolder {
     @Override
     public String remap(String cls, String reference) {
         String cleanReference = reference.replaceAll(" ", "");
-        return Optional.ofNullable(this.merged.mappings.get(cls))
-            .or(() -> Optional.ofNullable(this.merged.mappings.get(cls.replace('.', '/'))))
-            .map(map -> map.get(cleanReference))
-            .orElse(reference);
+        this.lock.readLock().lock();
+        try {
+            return Optional.ofNullable(this.merged.mappings.get(cls))
+                .or(() -> Optional.ofNullable(this.merged.mappings.get(cls.replace('.', '/'))))
+                .map(map -> map.get(cleanReference))
+                .orElse(reference);
+        } finally {
+            this.lock.readLock().unlock();
+        }
     }
 
     @Override
     public void copyEntries(String from, String to) {
-        copyMapEntries(this.merged, from, to);
-        this.refmapFiles.forEach((name, refmap) -> {
-            if (copyMapEntries(refmap, from, to)) {
-                this.dirtyRefmaps.add(name);
-            }
-        });
+        this.lock.writeLock().lock();
+        try {
+            copyMapEntries(this.merged, from, to);
+            this.refmapFiles.forEach((name, refmap) -> {
+                if (copyMapEntries(refmap, from, to)) {
+                    this.dirtyRefmaps.add(name);
+                }
+            });
+        } finally {
+            this.lock.writeLock().unlock();
+        }
     }
 
     private boolean copyMapEntries(MappingAwareReferenceMapper.SimpleRefmap refmap, String from, String to) {
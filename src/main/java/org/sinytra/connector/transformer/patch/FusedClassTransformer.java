@@ -0,0 +1,116 @@
+package org.sinytra.connector.transformer.patch;
+
+import net.minecraftforge.fart.api.Transformer;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.tree.ClassNode;
+import org.sinytra.adapter.patch.api.Patch;
+import org.sinytra.connector.transformer.MixinPatchTransformer;
+import org.sinytra.connector.transformer.OptimizedRenamingTransformer;
+import org.sinytra.connector.transformer.jar.ClassHierarchy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Runs the whole class transformation pipeline on a single parsed {@link ClassNode}.
+ * Each class is read once, processed by all node processors, remapped and patched in-tree, and written once.
+ * Frames are only computed if at least one stage requested it.
+ */
+public class FusedClassTransformer implements Transformer {
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final List<ClassProcessor> preProcessors;
+    private final OptimizedRenamingTransformer renamingTransformer;
+    private final List<ClassProcessor> postProcessors;
+    private final MixinPatchTransformer patchTransformer;
+    private final ClassHierarchy classHierarchy;
+
+    /**
+     * @param preProcessors       processors run on the class before remapping, in the source namespace
+     * @param renamingTransformer remapper applied after the pre-processors
+     * @param postProcessors      processors run on the remapped class
+     * @param patchTransformer    mixin patcher run last
+     * @param classHierarchy      hierarchy used to compute frames
+     */
+    public FusedClassTransformer(List<ClassProcessor> preProcessors, OptimizedRenamingTransformer renamingTransformer, List<ClassProcessor> postProcessors, MixinPatchTransformer patchTransformer, ClassHierarchy classHierarchy) {
+        this.preProcessors = preProcessors;
+        this.renamingTransformer = renamingTransformer;
+        this.postProcessors = postProcessors;
+        this.patchTransformer = patchTransformer;
+        this.classHierarchy = classHierarchy;
+    }
+
+    @Override
+    public ClassEntry process(ClassEntry entry) {
+        ClassReader reader = new ClassReader(entry.getData());
+        ClassNode node = new ClassNode();
+        reader.accept(node, 0);
+
+        Patch.Result patchResult = Patch.Result.PASS;
+        for (ClassProcessor processor : this.preProcessors) {
+            if (processor.accepts(reader)) {
+                patchResult = patchResult.or(processor.process(node));
+            }
+        }
+
+        // Remapping always rewrites the class
+        String originalName = node.name;
+        node = this.renamingTransformer.remapClass(node);
+        patchResult = patchResult.or(Patch.Result.APPLY);
+
+        for (ClassProcessor processor : this.postProcessors) {
+            if (processor.accepts(reader)) {
+                patchResult = patchResult.or(processor.process(node));
+            }
+        }
+        patchResult = patchResult.or(this.patchTransformer.patchClass(node));
+
+        ClassWriter writer = this.classHierarchy.createWriter(ClassWriter.COMPUTE_MAXS | (patchResult == Patch.Result.COMPUTE_FRAMES ? ClassWriter.COMPUTE_FRAMES : 0));
+        node.accept(writer);
+        return ClassEntry.create(getEntryName(entry.getName(), originalName, node.name), entry.getTime(), writer.toByteArray());
+    }
+
+    @Override
+    public ResourceEntry process(ResourceEntry entry) {
+        for (ClassProcessor processor : this.preProcessors) {
+            entry = processor.process(entry);
+        }
+        entry = this.renamingTransformer.process(entry);
+        if (entry != null) {
+            for (ClassProcessor processor : this.postProcessors) {
+                entry = processor.process(entry);
+            }
+            entry = this.patchTransformer.process(entry);
+        }
+        return entry;
+    }
+
+    @Override
+    public ManifestEntry process(ManifestEntry entry) {
+        entry = this.renamingTransformer.process(entry);
+        return entry != null ? this.patchTransformer.process(entry) : null;
+    }
+
+    @Override
+    public Collection<? extends Entry> getExtras() {
+        List<Entry> extras = new ArrayList<>();
+        for (ClassProcessor processor : this.preProcessors) {
+            extras.addAll(processor.getExtras());
+        }
+        extras.addAll(this.renamingTransformer.getExtras());
+        for (ClassProcessor processor : this.postProcessors) {
+            extras.addAll(processor.getExtras());
+        }
+        extras.addAll(this.patchTransformer.getExtras());
+        return extras;
+    }
+
+    // Keep any prefix, such as multi-release version directories, while renaming the class file
+    private static String getEntryName(String entryName, String originalName, String mappedName) {
+        String originalPath = originalName + CLASS_SUFFIX;
+        String prefix = entryName.endsWith(originalPath) ? entryName.substring(0, entryName.length() - originalPath.length()) : "";
+        return prefix + mappedName + CLASS_SUFFIX;
+    }
+}
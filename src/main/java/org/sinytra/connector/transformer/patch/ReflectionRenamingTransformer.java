@@ -1,8 +1,12 @@
 package org.sinytra.connector.transformer.patch;
 
+import com.mojang.logging.LogUtils;
+import net.minecraftforge.fart.api.Transformer;
 import org.sinytra.connector.transformer.jar.IntermediateMapping;
+import org.sinytra.connector.transformer.jar.JarTransformer;
 import net.minecraftforge.srgutils.IMappingFile;
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.AbstractInsnNode;
@@ -14,24 +18,53 @@ import org.objectweb.asm.tree.analysis.SourceInterpreter;
 import org.objectweb.asm.tree.analysis.SourceValue;
 import org.sinytra.adapter.patch.analysis.MethodCallAnalyzer;
 import org.sinytra.adapter.patch.api.Patch;
+import org.slf4j.Logger;
 
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReflectionRenamingTransformer implements ClassProcessor {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    // Only calls taking three leading String arguments (owner, name, desc) can be remapped
+    private static final String CANDIDATE_DESC_PREFIX = "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;";
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
 
-public class ReflectionRenamingTransformer implements ClassNodeTransformer.ClassProcessor {
     private final IMappingFile mappingFile;
     private final IntermediateMapping flatMappings;
+    private final AtomicInteger skippedClasses = new AtomicInteger();
+    private final AtomicInteger analysedMethods = new AtomicInteger();
+    private final AtomicInteger skippedMethods = new AtomicInteger();
 
     public ReflectionRenamingTransformer(IMappingFile mappingFile, IntermediateMapping flatMappings) {
         this.mappingFile = mappingFile;
         this.flatMappings = flatMappings;
     }
 
+    @Override
+    public boolean accepts(ClassReader reader) {
+        // Every invoked method's descriptor is referenced by a NameAndType constant
+        char[] buffer = new char[reader.getMaxStringLength()];
+        for (int i = 1; i < reader.getItemCount(); i++) {
+            int offset = reader.getItem(i);
+            if (offset > 0 && reader.readByte(offset - 1) == CONSTANT_NAME_AND_TYPE && reader.readUTF8(offset + 2, buffer).startsWith(CANDIDATE_DESC_PREFIX)) {
+                return true;
+            }
+        }
+        this.skippedClasses.incrementAndGet();
+        return false;
+    }
+
     @Override
     public Patch.Result process(ClassNode node) {
         boolean applied = false;
         for (MethodNode method : node.methods) {
+            if (!hasCandidateCall(method)) {
+                this.skippedMethods.incrementAndGet();
+                continue;
+            }
+            this.analysedMethods.incrementAndGet();
             ReflectionRemapperInterpreter interpreter = new ReflectionRemapperInterpreter(Opcodes.ASM9, this.mappingFile, this.flatMappings);
             MethodCallAnalyzer.analyzeInterpretMethod(method, interpreter);
             applied |= interpreter.remapApplied();
@@ -39,6 +72,22 @@ public class ReflectionRenamingTransformer implements ClassNodeTransformer.Class
         return applied ? Patch.Result.APPLY : Patch.Result.PASS;
     }
 
+    @Override
+    public Collection<? extends Transformer.Entry> getExtras() {
+        LOGGER.debug(JarTransformer.TRANSFORM_MARKER, "Reflection remapping analysed {} methods, skipped {} methods and {} classes without candidate calls",
+            this.analysedMethods.get(), this.skippedMethods.get(), this.skippedClasses.get());
+        return List.of();
+    }
+
+    private static boolean hasCandidateCall(MethodNode method) {
+        for (AbstractInsnNode insn : method.instructions) {
+            if (insn instanceof MethodInsnNode methodInsn && methodInsn.desc.startsWith(CANDIDATE_DESC_PREFIX)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static class ReflectionRemapperInterpreter extends SourceInterpreter {
         private static final Type STR_TYPE = Type.getType(String.class);
 
@@ -27,7 +27,7 @@ import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
-public record ConnectorConfig(int version, List<String> hiddenMods, Multimap<String, String> globalModAliases, boolean enableMixinSafeguard) {
+public record ConnectorConfig(int version, List<String> hiddenMods, Multimap<String, String> globalModAliases, boolean enableMixinSafeguard, int transformThreads, boolean parallelClassTransform, int transformHeapBudgetMb) {
     public static final Codec<ConnectorConfig> CODEC = RecordCodecBuilder.create(instance -> instance.group(
         Codec.INT
             .comapFlatMap(i -> i == 1 ? DataResult.success(i) : DataResult.error(() -> "Unsupported \"version\", must be 1"), Function.identity())
@@ -54,15 +54,28 @@ public record ConnectorConfig(int version, List<String> hiddenMods, Multimap<Str
             .forGetter(ConnectorConfig::globalModAliases),
         Codec.BOOL
             .optionalFieldOf("enableMixinSafeguard")
-            .forGetter(c -> Optional.of(c.enableMixinSafeguard()))
+            .forGetter(c -> Optional.of(c.enableMixinSafeguard())),
+        // Number of jars transformed in parallel, 0 uses all available processors
+        Codec.intRange(0, Short.MAX_VALUE)
+            .optionalFieldOf("transformThreads")
+            .forGetter(c -> Optional.of(c.transformThreads())),
+        // Process classes of a single jar in parallel, useful for packs containing a few very large mods
+        Codec.BOOL
+            .optionalFieldOf("parallelClassTransform")
+            .forGetter(c -> Optional.of(c.parallelClassTransform())),
+        // Estimated heap available to jars being transformed at once, in megabytes. 0 disables the limit
+        Codec.intRange(0, Integer.MAX_VALUE)
+            .optionalFieldOf("transformHeapBudgetMb")
+            .forGetter(c -> Optional.of(c.transformHeapBudgetMb()))
     ).apply(instance, ConnectorConfig::new));
 
-    ConnectorConfig(Optional<Integer> version, Optional<List<String>> hiddenMods, Multimap<String, String> globalModAliases, Optional<Boolean> enableMixinSafeguard) {
-        this(version.orElse(1), hiddenMods.orElseGet(List::of), globalModAliases, enableMixinSafeguard.orElse(true));
+    ConnectorConfig(Optional<Integer> version, Optional<List<String>> hiddenMods, Multimap<String, String> globalModAliases, Optional<Boolean> enableMixinSafeguard, Optional<Integer> transformThreads, Optional<Boolean> parallelClassTransform, Optional<Integer> transformHeapBudgetMb) {
+        this(version.orElse(1), hiddenMods.orElseGet(List::of), globalModAliases, enableMixinSafeguard.orElse(true), transformThreads.orElse(0), parallelClassTransform.orElse(false), transformHeapBudgetMb.orElse(0));
     }
 
-    private static final ConnectorConfig DEFAULT = new ConnectorConfig(1, List.of(), ConnectorUtil.DEFAULT_GLOBAL_MOD_ALIASES, true);
+    private static final ConnectorConfig DEFAULT = new ConnectorConfig(1, List.of(), ConnectorUtil.DEFAULT_GLOBAL_MOD_ALIASES, true, 0, false, 0);
     private static final Logger LOGGER = LogUtils.getLogger();
+
     public static final Supplier<ConnectorConfig> INSTANCE = Suppliers.memoize(() -> {
         Path path = FMLPaths.CONFIGDIR.get().resolve("connector.json");
         try {
@@ -82,4 +95,12 @@ public record ConnectorConfig(int version, List<String> hiddenMods, Multimap<Str
         }
         return DEFAULT;
     });
+
+    public int getTransformParallelism() {
+        return this.transformThreads > 0 ? this.transformThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    public long getTransformHeapBudget() {
+        return this.transformHeapBudgetMb * 1024L * 1024L;
+    }
 }
@@ -2,7 +2,6 @@ package org.sinytra.connector.util;
 
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.Multimap;
-import com.google.common.hash.Hashing;
 import cpw.mods.modlauncher.api.ServiceRunner;
 import net.fabricmc.loader.api.FabricLoader;
 import net.fabricmc.loader.api.Version;
@@ -18,9 +17,15 @@ import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 import static cpw.mods.modlauncher.api.LambdaExceptionUtils.uncheck;
@@ -139,14 +144,24 @@ public final class ConnectorUtil {
         CACHE_ENABLED = prop == null || prop.equals("true");
     }
 
+    public static boolean isCacheEnabled() {
+        return CACHE_ENABLED;
+    }
+
+    /**
+     * {@return the file storing the input checksum of a cached output}
+     */
+    public static Path getInputCachePath(Path output) {
+        return output.getParent().resolve(output.getFileName() + ".input");
+    }
+
     public static CacheFile getCached(@Nullable Path input, Path output) {
         if (CACHE_ENABLED) {
-            Path inputCache = output.getParent().resolve(output.getFileName() + ".input");
+            Path inputCache = getInputCachePath(output);
             try {
                 String hash = EmbeddedDependencies.getJarCacheVersion();
                 if (input != null) {
-                    byte[] bytes = Files.readAllBytes(input);
-                    hash += "," + Hashing.sha256().hashBytes(bytes);
+                    hash += "," + FileDigestIndex.INSTANCE.getDigest(input);
                 }
 
                 if (Files.exists(inputCache)) {
@@ -185,6 +200,41 @@ public final class ConnectorUtil {
         }
     }
 
+    /**
+     * Apply an I/O bound function to each element on its own virtual thread and wait for all results.
+     *
+     * @param inputs   elements to process
+     * @param function function to apply
+     * @return results in the order of {@code inputs}
+     */
+    public static <T, R> List<R> mapConcurrently(List<T> inputs, Function<T, R> function) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<R>> futures = inputs.stream()
+                .map(input -> executor.submit(() -> function.apply(input)))
+                .toList();
+            List<R> results = new ArrayList<>(futures.size());
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            if (cause instanceof IOException io) {
+                throw new UncheckedIOException(io);
+            }
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
     public static boolean isJavaReservedKeyword(String str) {
         return RESERVED.contains(str);
     }
@@ -0,0 +1,147 @@
+package org.sinytra.connector.util;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persisted index of file digests keyed by file path and validated using the file's size, modification time and file key (inode).
+ * Allows skipping reading and hashing input files whose attributes haven't changed since the last launch.
+ */
+public final class FileDigestIndex {
+    public static final FileDigestIndex INSTANCE = new FileDigestIndex(ConnectorUtil.CONNECTOR_FOLDER.resolve("digests.bin"));
+
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final Logger LOGGER = LogUtils.getLogger();
+    // Use a fast non-cryptographic hash function instead of SHA-256
+    private static final boolean FAST_HASH = Boolean.getBoolean("connector.cache.fastHash");
+
+    private final Path path;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+    private volatile boolean dirty;
+
+    private FileDigestIndex(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * {@return the digest of a file's contents, computed only if the file has changed since it was last indexed}
+     *
+     * @param file the file to digest
+     */
+    public String getDigest(Path file) throws IOException {
+        // Only files on the default file system have stable paths and attributes, e.g. nested jar paths do not
+        if (file.getFileSystem() != FileSystems.getDefault()) {
+            return computeDigest(file);
+        }
+        load();
+        String key = file.toAbsolutePath().normalize().toString();
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        String fileKey = String.valueOf(attributes.fileKey());
+
+        Entry existing = this.entries.get(key);
+        if (existing != null && existing.size() == size && existing.modified() == modified && existing.fileKey().equals(fileKey)) {
+            return existing.digest();
+        }
+        String digest = computeDigest(file);
+        this.entries.put(key, new Entry(size, modified, fileKey, digest));
+        this.dirty = true;
+        return digest;
+    }
+
+    /**
+     * Write updated digests to disk, dropping entries of files that no longer exist.
+     */
+    public synchronized void save() {
+        if (!this.dirty) {
+            return;
+        }
+        // Cleared before taking the snapshot, so that digests added while saving mark the index dirty again
+        this.dirty = false;
+        try {
+            Files.createDirectories(this.path.getParent());
+            Path temp = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+            this.entries.keySet().removeIf(key -> Files.notExists(Path.of(key)));
+            Map<String, Entry> snapshot = Map.copyOf(this.entries);
+            try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                os.writeInt(VERSION);
+                os.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> mapEntry : snapshot.entrySet()) {
+                    Entry entry = mapEntry.getValue();
+                    os.writeUTF(mapEntry.getKey());
+                    os.writeLong(entry.size());
+                    os.writeLong(entry.modified());
+                    os.writeUTF(entry.fileKey());
+                    os.writeUTF(entry.digest());
+                }
+            }
+            Files.move(temp, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            this.dirty = true;
+            LOGGER.error("Error saving file digest index", e);
+        }
+    }
+
+    private void load() {
+        if (this.loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (this.loaded) {
+                return;
+            }
+            if (Files.exists(this.path)) {
+                try (DataInputStream is = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.path)))) {
+                    if (is.readInt() == VERSION) {
+                        int count = is.readInt();
+                        for (int i = 0; i < count; i++) {
+                            String key = is.readUTF();
+                            this.entries.put(key, new Entry(is.readLong(), is.readLong(), is.readUTF(), is.readUTF()));
+                        }
+                    }
+                } catch (IOException e) {
+                    LOGGER.error("Error reading file digest index, all files will be rehashed", e);
+                    this.entries.clear();
+                }
+            }
+            this.loaded = true;
+        }
+    }
+
+    private static String computeDigest(Path file) throws IOException {
+        HashFunction function = FAST_HASH ? Hashing.murmur3_128() : Hashing.sha256();
+        // Stream contents in chunks instead of reading the whole file into memory
+        try (InputStream is = Files.newInputStream(file)) {
+            Hasher hasher = function.newHasher();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                hasher.putBytes(buffer, 0, read);
+            }
+            String digest = hasher.hash().toString();
+            return FAST_HASH ? "murmur3:" + digest : digest;
+        }
+    }
+
+    private record Entry(long size, long modified, String fileKey, String digest) {}
+}